@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.benchmark;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.compute.ComputeServiceContext;
+import org.jclouds.json.Json;
+import org.jclouds.packet.domain.Device;
+import org.jclouds.packet.domain.Facility;
+import org.jclouds.packet.domain.OperatingSystem;
+import org.jclouds.packet.domain.Plan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.reflect.TypeToken;
+
+/**
+ * Measures how fast the Packet list responses are decoded with the Gson
+ * configuration used by the provider, for collections of different sizes.
+ * <p>
+ * Run with {@code mvn -Pbenchmark}; the {@code gc} profiler is enabled by
+ * default to report the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonDecodingBenchmark {
+
+   @Param({ "10", "1000", "50000" })
+   public int size;
+
+   private ComputeServiceContext context;
+   private Json json;
+
+   private String devices;
+   private String plans;
+   private String facilities;
+   private String operatingSystems;
+
+   @Setup(Level.Trial)
+   public void setup() {
+      context = PacketPayloads.context();
+      json = PacketPayloads.injector(context).getInstance(Json.class);
+      devices = PacketPayloads.scaled("/devices.json", "devices", size);
+      plans = PacketPayloads.scaled("/plans.json", "plans", size);
+      facilities = PacketPayloads.scaled("/facilities.json", "facilities", size);
+      operatingSystems = PacketPayloads.scaled("/operatingSystems.json", "operating_systems", size);
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      context.close();
+   }
+
+   @Benchmark
+   public List<Device> devices() {
+      return decode(devices, "devices", new TypeToken<Map<String, List<Device>>>() {
+      }.getType());
+   }
+
+   @Benchmark
+   public List<Plan> plans() {
+      return decode(plans, "plans", new TypeToken<Map<String, List<Plan>>>() {
+      }.getType());
+   }
+
+   @Benchmark
+   public List<Facility> facilities() {
+      return decode(facilities, "facilities", new TypeToken<Map<String, List<Facility>>>() {
+      }.getType());
+   }
+
+   @Benchmark
+   public List<OperatingSystem> operatingSystems() {
+      return decode(operatingSystems, "operating_systems", new TypeToken<Map<String, List<OperatingSystem>>>() {
+      }.getType());
+   }
+
+   private <T> List<T> decode(String payload, String collection, Type type) {
+      Map<String, List<T>> decoded = json.fromJson(payload, type);
+      return decoded.get(collection);
+   }
+}
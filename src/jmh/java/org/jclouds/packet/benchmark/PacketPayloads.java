@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.benchmark;
+
+import java.io.IOException;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.compute.ComputeServiceContext;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.io.Resources;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.inject.Injector;
+
+/**
+ * Builds the fixtures shared by the Packet benchmarks.
+ */
+final class PacketPayloads {
+
+   /**
+    * Builds a compute context that never reaches the network, so the parsers
+    * and transforms can be obtained exactly as they are wired in production.
+    */
+   static ComputeServiceContext context() {
+      return ContextBuilder.newBuilder("packet")
+            .credentials("projectId", "token")
+            .endpoint("http://localhost:1/")
+            .buildView(ComputeServiceContext.class);
+   }
+
+   static Injector injector(ComputeServiceContext context) {
+      return context.utils().injector();
+   }
+
+   /**
+    * Loads the given test resource and repeats the elements of the collection
+    * with the given name until it has the requested number of entries. Each
+    * copy gets a unique id so the payload does not degenerate into duplicates.
+    */
+   static String scaled(String resource, String collection, int size) {
+      JsonObject root = new JsonParser().parse(stringFromResource(resource)).getAsJsonObject();
+      JsonArray template = root.getAsJsonArray(collection);
+      JsonArray entries = new JsonArray();
+      for (int i = 0; i < size; i++) {
+         JsonObject copy = copy(template.get(i % template.size()).getAsJsonObject());
+         if (copy.has("id")) {
+            copy.addProperty("id", copy.get("id").getAsString() + "-" + i);
+         }
+         entries.add(copy);
+      }
+      JsonObject payload = new JsonObject();
+      payload.add(collection, entries);
+      return payload.toString();
+   }
+
+   private static JsonObject copy(JsonObject object) {
+      // Re-parsing is the only deep copy available in every Gson version
+      return new JsonParser().parse(object.toString()).getAsJsonObject();
+   }
+
+   private static String stringFromResource(String resource) {
+      try {
+         return Resources.toString(PacketPayloads.class.getResource(resource), Charsets.UTF_8);
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   private PacketPayloads() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+}
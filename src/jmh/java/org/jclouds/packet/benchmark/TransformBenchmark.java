@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.compute.ComputeServiceContext;
+import org.jclouds.json.Json;
+import org.jclouds.packet.compute.functions.DeviceToNodeMetadata;
+import org.jclouds.packet.compute.functions.OperatingSystemToImage;
+import org.jclouds.packet.compute.functions.PlanToHardware;
+import org.jclouds.packet.domain.Device;
+import org.jclouds.packet.domain.OperatingSystem;
+import org.jclouds.packet.domain.Plan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.reflect.TypeToken;
+import com.google.inject.Injector;
+
+/**
+ * Measures the functions that map the Packet domain objects to the jclouds
+ * portable model, applying each one to a whole collection per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+
+   @Param({ "10", "1000", "50000" })
+   public int size;
+
+   private ComputeServiceContext context;
+
+   private DeviceToNodeMetadata deviceToNodeMetadata;
+   private PlanToHardware planToHardware;
+   private OperatingSystemToImage operatingSystemToImage;
+
+   private List<Device> devices;
+   private List<Plan> plans;
+   private List<OperatingSystem> operatingSystems;
+
+   @Setup(Level.Trial)
+   public void setup() {
+      context = PacketPayloads.context();
+      Injector injector = PacketPayloads.injector(context);
+      deviceToNodeMetadata = injector.getInstance(DeviceToNodeMetadata.class);
+      planToHardware = injector.getInstance(PlanToHardware.class);
+      operatingSystemToImage = injector.getInstance(OperatingSystemToImage.class);
+
+      Json json = injector.getInstance(Json.class);
+      Map<String, List<Device>> decodedDevices = json.fromJson(
+            PacketPayloads.scaled("/devices.json", "devices", size),
+            new TypeToken<Map<String, List<Device>>>() {
+            }.getType());
+      Map<String, List<Plan>> decodedPlans = json.fromJson(
+            PacketPayloads.scaled("/plans.json", "plans", size),
+            new TypeToken<Map<String, List<Plan>>>() {
+            }.getType());
+      Map<String, List<OperatingSystem>> decodedOperatingSystems = json.fromJson(
+            PacketPayloads.scaled("/operatingSystems.json", "operating_systems", size),
+            new TypeToken<Map<String, List<OperatingSystem>>>() {
+            }.getType());
+      devices = decodedDevices.get("devices");
+      plans = decodedPlans.get("plans");
+      operatingSystems = decodedOperatingSystems.get("operating_systems");
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      context.close();
+   }
+
+   @Benchmark
+   public void deviceToNodeMetadata(Blackhole blackhole) {
+      for (Device device : devices) {
+         blackhole.consume(deviceToNodeMetadata.apply(device));
+      }
+   }
+
+   @Benchmark
+   public void planToHardware(Blackhole blackhole) {
+      for (Plan plan : plans) {
+         blackhole.consume(planToHardware.apply(plan));
+      }
+   }
+
+   @Benchmark
+   public void operatingSystemToImage(Blackhole blackhole) {
+      for (OperatingSystem operatingSystem : operatingSystems) {
+         blackhole.consume(operatingSystemToImage.apply(operatingSystem));
+      }
+   }
+}
@@ -20,7 +20,9 @@ import java.io.Closeable;
 
 import javax.ws.rs.PathParam;
 
+import org.jclouds.packet.features.CapacityApi;
 import org.jclouds.packet.features.DeviceApi;
+import org.jclouds.packet.features.EventApi;
 import org.jclouds.packet.features.FacilityApi;
 import org.jclouds.packet.features.OperatingSystemApi;
 import org.jclouds.packet.features.PlanApi;
@@ -83,4 +85,20 @@ public interface PacketApi extends Closeable {
     */
    @Delegate
    SshKeyApi sshKeyApi();
+
+   /**
+    * This Packet API provides the events of the projects and devices
+    *
+    * @see <a href="https://www.packet.net/help/api/#page:events">docs</a>
+    */
+   @Delegate
+   EventApi eventApi();
+
+   /**
+    * This Packet API provides the capacity of each plan in each facility
+    *
+    * @see <a href="https://www.packet.net/help/api/#page:capacity">docs</a>
+    */
+   @Delegate
+   CapacityApi capacityApi();
 }
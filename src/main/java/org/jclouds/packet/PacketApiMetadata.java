@@ -18,6 +18,33 @@ package org.jclouds.packet;
 
 import static org.jclouds.compute.config.ComputeServiceProperties.TEMPLATE;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_RUNNING;
+import static org.jclouds.packet.config.PacketProperties.CAPACITY_CACHE_TTL;
+import static org.jclouds.packet.config.PacketProperties.CAPACITY_CHECK_ENABLED;
+import static org.jclouds.packet.config.PacketProperties.CAPACITY_CHECK_FALLBACK_FACILITIES;
+import static org.jclouds.packet.config.PacketProperties.CATALOG_SNAPSHOT_DIR;
+import static org.jclouds.packet.config.PacketProperties.CATALOG_SNAPSHOT_MAX_AGE;
+import static org.jclouds.packet.config.PacketProperties.CONDITIONAL_REQUEST_OPERATIONS;
+import static org.jclouds.packet.config.PacketProperties.DESTROY_NODES_PARALLELISM;
+import static org.jclouds.packet.config.PacketProperties.DEVICE_PAGE_SIZE;
+import static org.jclouds.packet.config.PacketProperties.DEVICE_STATE_POLLER_EVENTS_ENABLED;
+import static org.jclouds.packet.config.PacketProperties.DEVICE_STATE_POLLER_MAX_PERIOD;
+import static org.jclouds.packet.config.PacketProperties.DEVICE_STATE_POLLER_PERIOD;
+import static org.jclouds.packet.config.PacketProperties.HTTP_KEEP_ALIVE;
+import static org.jclouds.packet.config.PacketProperties.HTTP_MAX_IDLE_CONNECTIONS;
+import static org.jclouds.packet.config.PacketProperties.HTTP_WARM_UP_CONNECTIONS;
+import static org.jclouds.packet.config.PacketProperties.INVENTORY_CACHE_ENABLED;
+import static org.jclouds.packet.config.PacketProperties.INVENTORY_CACHE_MAX_STALENESS;
+import static org.jclouds.packet.config.PacketProperties.INVENTORY_CACHE_TTL;
+import static org.jclouds.packet.config.PacketProperties.LIST_NODES_BY_IDS_PARALLELISM;
+import static org.jclouds.packet.config.PacketProperties.LIST_NODES_BY_IDS_THRESHOLD;
+import static org.jclouds.packet.config.PacketProperties.METRICS_ENABLED;
+import static org.jclouds.packet.config.PacketProperties.METRICS_JMX_ENABLED;
+import static org.jclouds.packet.config.PacketProperties.OPERATING_SYSTEM_CATALOG_REFRESH_INTERVAL;
+import static org.jclouds.packet.config.PacketProperties.PROVISIONING_TIMES_FILE;
+import static org.jclouds.packet.config.PacketProperties.RATE_LIMIT_MAX_WAIT;
+import static org.jclouds.packet.config.PacketProperties.RATE_LIMIT_PERMITS;
+import static org.jclouds.packet.config.PacketProperties.SSH_KEY_CACHE_TTL;
+import static org.jclouds.packet.config.PacketProperties.SSH_KEY_CLEANUP_PARALLELISM;
 import static org.jclouds.reflect.Reflection2.typeToken;
 
 import java.net.URI;
@@ -25,6 +52,7 @@ import java.util.Properties;
 
 import org.jclouds.apis.ApiMetadata;
 import org.jclouds.compute.ComputeServiceContext;
+import org.jclouds.http.okhttp.config.OkHttpCommandExecutorServiceModule;
 import org.jclouds.packet.compute.config.PacketComputeServiceContextModule;
 import org.jclouds.packet.config.PacketHttpApiModule;
 import org.jclouds.rest.internal.BaseHttpApiMetadata;
@@ -54,6 +82,33 @@ public class PacketApiMetadata extends BaseHttpApiMetadata<PacketApi> {
       Properties properties = BaseHttpApiMetadata.defaultProperties();
       properties.put(TEMPLATE, "osFamily=UBUNTU,os64Bit=true,osVersionMatches=14.*");
       properties.put(TIMEOUT_NODE_RUNNING, 300000); // 5 mins
+      properties.put(DEVICE_PAGE_SIZE, "100");
+      properties.put(INVENTORY_CACHE_ENABLED, "false");
+      properties.put(INVENTORY_CACHE_TTL, "30000"); // 30 secs
+      properties.put(INVENTORY_CACHE_MAX_STALENESS, "120000"); // 2 mins
+      properties.put(LIST_NODES_BY_IDS_THRESHOLD, "10");
+      properties.put(LIST_NODES_BY_IDS_PARALLELISM, "5");
+      properties.put(OPERATING_SYSTEM_CATALOG_REFRESH_INTERVAL, "900000"); // 15 mins
+      properties.put(DEVICE_STATE_POLLER_PERIOD, "5000"); // 5 secs
+      properties.put(DEVICE_STATE_POLLER_EVENTS_ENABLED, "true");
+      properties.put(DEVICE_STATE_POLLER_MAX_PERIOD, "60000"); // 1 min
+      properties.put(PROVISIONING_TIMES_FILE, "");
+      properties.put(SSH_KEY_CLEANUP_PARALLELISM, "5");
+      properties.put(DESTROY_NODES_PARALLELISM, "10");
+      properties.put(SSH_KEY_CACHE_TTL, "300000"); // 5 mins
+      properties.put(RATE_LIMIT_PERMITS, "*=10");
+      properties.put(RATE_LIMIT_MAX_WAIT, "300000"); // 5 mins
+      properties.put(METRICS_ENABLED, "true");
+      properties.put(METRICS_JMX_ENABLED, "false");
+      properties.put(HTTP_MAX_IDLE_CONNECTIONS, "10");
+      properties.put(HTTP_KEEP_ALIVE, "300000"); // 5 mins
+      properties.put(HTTP_WARM_UP_CONNECTIONS, "0");
+      properties.put(CONDITIONAL_REQUEST_OPERATIONS, "plan:list,facility:list,operatingsystem:list");
+      properties.put(CATALOG_SNAPSHOT_DIR, "");
+      properties.put(CATALOG_SNAPSHOT_MAX_AGE, "604800000"); // 7 days
+      properties.put(CAPACITY_CHECK_ENABLED, "false");
+      properties.put(CAPACITY_CHECK_FALLBACK_FACILITIES, "");
+      properties.put(CAPACITY_CACHE_TTL, "60000"); // 1 min
       return properties;
    }
 
@@ -71,6 +126,7 @@ public class PacketApiMetadata extends BaseHttpApiMetadata<PacketApi> {
                  .defaultModules(ImmutableSet.<Class<? extends Module>>builder()
                        .add(PacketHttpApiModule.class)
                        .add(PacketComputeServiceContextModule.class)
+                       .add(OkHttpCommandExecutorServiceModule.class)
                        .build());
       }
 
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.compute.util.ComputeServiceUtils.getCores;
+import static org.jclouds.compute.util.ComputeServiceUtils.getSpace;
+import static org.jclouds.packet.compute.functions.PlanToHardware.HOURLY_PRICE;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.collect.Memoized;
+import org.jclouds.compute.domain.Hardware;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Finds the cheapest hardware profile that meets the given CPU, RAM and disk constraints, to use its id in the
+ * template builder:
+ * <pre>
+ * HardwareByPrice prices = context.utils().injector().getInstance(HardwareByPrice.class);
+ * Hardware hardware = prices.cheapest(HardwareByPrice.Cost.HOUR_PER_CORE, 4, 16384, 100).get();
+ * Template template = context.getComputeService().templateBuilder().hardwareId(hardware.getId()).build();
+ * </pre>
+ * The hardware profiles are indexed by each cost once per refresh of the hardware catalog, so a lookup only goes
+ * through the profiles cheaper than the one it returns.
+ */
+@Singleton
+public class HardwareByPrice {
+
+   /**
+    * What the hardware profiles are ranked by.
+    */
+   public enum Cost {
+      HOUR {
+         @Override
+         double of(Hardware hardware, double hourlyPrice) {
+            return hourlyPrice;
+         }
+      },
+      HOUR_PER_CORE {
+         @Override
+         double of(Hardware hardware, double hourlyPrice) {
+            double cores = getCores(hardware);
+            return cores > 0 ? hourlyPrice / cores : Double.MAX_VALUE;
+         }
+      },
+      HOUR_PER_GB_RAM {
+         @Override
+         double of(Hardware hardware, double hourlyPrice) {
+            return hardware.getRam() > 0 ? hourlyPrice * 1024 / hardware.getRam() : Double.MAX_VALUE;
+         }
+      };
+
+      abstract double of(Hardware hardware, double hourlyPrice);
+   }
+
+   private final Supplier<Set<? extends Hardware>> hardware;
+   private volatile Index index;
+
+   @Inject
+   HardwareByPrice(@Memoized Supplier<Set<? extends Hardware>> hardware) {
+      this.hardware = checkNotNull(hardware, "hardware cannot be null");
+   }
+
+   /**
+    * Returns the hardware profile with the lowest hourly price that has at least the given cores, RAM (in MB) and
+    * disk space (in GB).
+    */
+   public Optional<Hardware> cheapest(double minCores, int minRam, double minDisk) {
+      return cheapest(Cost.HOUR, minCores, minRam, minDisk);
+   }
+
+   /**
+    * Returns the hardware profile with the lowest given cost that has at least the given cores, RAM (in MB) and
+    * disk space (in GB).
+    */
+   public Optional<Hardware> cheapest(Cost cost, double minCores, int minRam, double minDisk) {
+      for (Hardware candidate : index().byCost.get(checkNotNull(cost, "cost"))) {
+         if (getCores(candidate) >= minCores && candidate.getRam() >= minRam && getSpace(candidate) >= minDisk) {
+            return Optional.of(candidate);
+         }
+      }
+      return Optional.absent();
+   }
+
+   /**
+    * Returns the hourly price of the given hardware profile, if known.
+    */
+   public static Optional<Double> hourlyPrice(Hardware hardware) {
+      String price = hardware.getUserMetadata().get(HOURLY_PRICE);
+      return price == null ? Optional.<Double> absent() : Optional.of(Double.valueOf(price));
+   }
+
+   private Index index() {
+      Set<? extends Hardware> current = hardware.get();
+      Index existing = index;
+      if (existing != null && existing.source == current) {
+         return existing;
+      }
+      // The memoized supplier returns the same set until it is refreshed
+      Index rebuilt = new Index(current);
+      index = rebuilt;
+      return rebuilt;
+   }
+
+   private static final class Index {
+      private final Set<? extends Hardware> source;
+      private final Map<Cost, List<Hardware>> byCost = new EnumMap<Cost, List<Hardware>>(Cost.class);
+
+      Index(Set<? extends Hardware> source) {
+         this.source = source;
+         for (final Cost cost : Cost.values()) {
+            List<Hardware> priced = Lists.newArrayList();
+            for (Hardware hardware : source) {
+               if (hourlyPrice(hardware).isPresent()) {
+                  priced.add(hardware);
+               }
+            }
+            Collections.sort(priced, new Comparator<Hardware>() {
+               @Override
+               public int compare(Hardware left, Hardware right) {
+                  return Double.compare(cost.of(left, hourlyPrice(left).get()), cost.of(right, hourlyPrice(right).get()));
+               }
+            });
+            byCost.put(cost, ImmutableList.copyOf(priced));
+         }
+      }
+   }
+}
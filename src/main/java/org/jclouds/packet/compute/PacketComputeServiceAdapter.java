@@ -17,20 +17,31 @@
 package org.jclouds.packet.compute;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Iterables.contains;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Iterables.filter;
-import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_RUNNING;
+import static com.google.common.base.Throwables.propagate;
+import static org.jclouds.packet.config.PacketProperties.DESTROY_NODES_PARALLELISM;
+import static org.jclouds.packet.config.PacketProperties.LIST_NODES_BY_IDS_PARALLELISM;
+import static org.jclouds.packet.config.PacketProperties.LIST_NODES_BY_IDS_THRESHOLD;
 
 import java.net.URI;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.Constants;
 import org.jclouds.compute.ComputeServiceAdapter;
+import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.Template;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.domain.Credentials;
@@ -38,7 +49,14 @@ import org.jclouds.domain.LoginCredentials;
 import org.jclouds.location.Provider;
 import org.jclouds.logging.Logger;
 import org.jclouds.packet.PacketApi;
+import org.jclouds.packet.compute.functions.DeviceSummaryToNodeMetadata;
+import org.jclouds.packet.compute.internal.CatalogSnapshot;
+import org.jclouds.packet.compute.internal.DeviceInventoryCache;
+import org.jclouds.packet.compute.internal.DeviceStatePoller;
+import org.jclouds.packet.compute.internal.OperatingSystemCatalog;
+import org.jclouds.packet.compute.internal.ProvisioningTimes;
 import org.jclouds.packet.compute.options.PacketTemplateOptions;
+import org.jclouds.packet.compute.utils.ConcurrentTasks;
 import org.jclouds.packet.compute.utils.URIs;
 import org.jclouds.packet.domain.ActionType;
 import org.jclouds.packet.domain.BillingCycle;
@@ -47,10 +65,17 @@ import org.jclouds.packet.domain.Facility;
 import org.jclouds.packet.domain.OperatingSystem;
 import org.jclouds.packet.domain.Plan;
 
-import com.google.common.base.Optional;
+import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
 
 /**
  * defines the connection between the {@link org.jclouds.packet.PacketApi} implementation and
@@ -64,18 +89,68 @@ public class PacketComputeServiceAdapter implements ComputeServiceAdapter<Device
    protected Logger logger = Logger.NULL;
 
    private final PacketApi api;
-   private final Predicate<String> nodeRunningPredicate;
+   private final DeviceStatePoller poller;
+   private final long nodeRunningTimeout;
+   private final long nodeTerminatedTimeout;
    private final String projectId;
+   private final DeviceInventoryCache inventory;
+   private final OperatingSystemCatalog operatingSystems;
+   private final ListeningExecutorService userExecutor;
+   private final int listNodesByIdsThreshold;
+   private final int listNodesByIdsParallelism;
+   // Lazy, as it depends on the hardware and location suppliers, which depend on this adapter
+   private final javax.inject.Provider<DeviceSummaryToNodeMetadata> summaryToNodeMetadata;
+   private final CatalogSnapshot catalogSnapshot;
+   private final int destroyNodesParallelism;
+   private final ProvisioningTimes provisioningTimes;
 
    @Inject
-   public PacketComputeServiceAdapter(PacketApi api, @Provider final Supplier<Credentials> creds, @Named(TIMEOUT_NODE_RUNNING) Predicate<String> nodeRunningPredicate) {
+   public PacketComputeServiceAdapter(PacketApi api, @Provider final Supplier<Credentials> creds,
+                                      DeviceStatePoller poller, ComputeServiceConstants.Timeouts timeouts,
+                                      DeviceInventoryCache inventory, OperatingSystemCatalog operatingSystems,
+                                      @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+                                      @Named(LIST_NODES_BY_IDS_THRESHOLD) int listNodesByIdsThreshold,
+                                      @Named(LIST_NODES_BY_IDS_PARALLELISM) int listNodesByIdsParallelism,
+                                      javax.inject.Provider<DeviceSummaryToNodeMetadata> summaryToNodeMetadata,
+                                      CatalogSnapshot catalogSnapshot,
+                                      @Named(DESTROY_NODES_PARALLELISM) int destroyNodesParallelism,
+                                      ProvisioningTimes provisioningTimes) {
+      checkArgument(listNodesByIdsParallelism > 0, "listNodesByIdsParallelism must be greater than 0");
+      checkArgument(destroyNodesParallelism > 0, "destroyNodesParallelism must be greater than 0");
       this.api = checkNotNull(api, "api");
       this.projectId = creds.get().identity;
-      this.nodeRunningPredicate = nodeRunningPredicate;
+      this.poller = checkNotNull(poller, "poller");
+      this.nodeRunningTimeout = timeouts.nodeRunning;
+      this.nodeTerminatedTimeout = timeouts.nodeTerminated;
+      this.inventory = checkNotNull(inventory, "inventory");
+      this.operatingSystems = checkNotNull(operatingSystems, "operatingSystems");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.listNodesByIdsThreshold = listNodesByIdsThreshold;
+      this.listNodesByIdsParallelism = listNodesByIdsParallelism;
+      this.summaryToNodeMetadata = checkNotNull(summaryToNodeMetadata, "summaryToNodeMetadata");
+      this.catalogSnapshot = checkNotNull(catalogSnapshot, "catalogSnapshot");
+      this.destroyNodesParallelism = destroyNodesParallelism;
+      this.provisioningTimes = checkNotNull(provisioningTimes, "provisioningTimes");
    }
 
    @Override
    public NodeAndInitialCredentials<Device> createNodeWithGroupEncodedIntoName(String group, String name, Template template) {
+      try {
+         return createNodeWithGroupEncodedIntoNameAsync(group, name, template).get();
+      } catch (InterruptedException ex) {
+         Thread.currentThread().interrupt();
+         throw propagate(ex);
+      } catch (ExecutionException ex) {
+         throw propagate(ex.getCause());
+      }
+   }
+
+   /**
+    * Creates the device and returns without waiting for it to be provisioned. The returned future completes once
+    * the device is ACTIVE, or once the {@link org.jclouds.compute.config.ComputeServiceProperties#TIMEOUT_NODE_RUNNING}
+    * timeout expires, with the device in the state it has at that point.
+    */
+   public ListenableFuture<NodeAndInitialCredentials<Device>> createNodeWithGroupEncodedIntoNameAsync(String group, String name, Template template) {
 
       PacketTemplateOptions templateOptions = template.getOptions().as(PacketTemplateOptions.class);
       checkNotNull(templateOptions.getLoginPrivateKey(), "login privateKey must not be null");
@@ -99,22 +174,60 @@ public class PacketComputeServiceAdapter implements ComputeServiceAdapter<Device
               locked,
               userdata,
               tags);
-      String deviceId = URIs.toId(deviceUriLocation);
-      nodeRunningPredicate.apply(deviceId);
-      Device device = api.deviceApi(projectId).get(deviceId);
-
+      final String deviceId = URIs.toId(deviceUriLocation);
 
-      LoginCredentials defaultCredentials = LoginCredentials.builder()
+      final LoginCredentials defaultCredentials = LoginCredentials.builder()
               .user("root")
               .privateKey(templateOptions.getLoginPrivateKey())
               .build();
 
-      return new NodeAndInitialCredentials<Device>(device, device.id(), defaultCredentials);
+      final SettableFuture<NodeAndInitialCredentials<Device>> node = SettableFuture.create();
+      final ProvisioningTimes.PollSchedule schedule = provisioningTimes.start(deviceId, plan, facility, operatingSystem);
+      // No user thread is parked per device being provisioned. The callback only runs in the user executor once the
+      // device is ready or the timeout expires, as it may look the device up, and must not stall the poller.
+      Futures.addCallback(poller.awaitState(projectId, deviceId, Device.State.ACTIVE, nodeRunningTimeout, schedule),
+            new FutureCallback<Device>() {
+               @Override
+               public void onSuccess(Device device) {
+                  provisioningTimes.completed(schedule);
+                  complete(device);
+               }
+
+               @Override
+               public void onFailure(Throwable t) {
+                  provisioningTimes.abandoned(schedule);
+                  if (t instanceof TimeoutException) {
+                     // Return the device as-is and let the compute service decide what to do with it
+                     try {
+                        complete(api.deviceApi(projectId).get(deviceId));
+                     } catch (RuntimeException ex) {
+                        node.setException(ex);
+                     }
+                  } else {
+                     node.setException(t);
+                  }
+               }
+
+               private void complete(Device device) {
+                  if (device == null) {
+                     node.setException(new IllegalStateException("Device " + deviceId + " was not found"));
+                  } else {
+                     inventory.put(projectId, device);
+                     node.set(new NodeAndInitialCredentials<Device>(device, device.id(), defaultCredentials));
+                  }
+               }
+            }, userExecutor);
+
+      return node;
    }
 
    @Override
    public Iterable<Plan> listHardwareProfiles() {
-      return Iterables.filter(api.planApi().list(), new Predicate<Plan>() {
+      Iterable<Plan> plans = catalogSnapshot.plans();
+      if (plans == null) {
+         plans = api.planApi().list();
+      }
+      return Iterables.filter(plans, new Predicate<Plan>() {
          @Override
          public boolean apply(Plan input) {
             return input.line().equals("baremetal");
@@ -124,41 +237,86 @@ public class PacketComputeServiceAdapter implements ComputeServiceAdapter<Device
 
    @Override
    public Iterable<OperatingSystem> listImages() {
-      return api.operatingSystemApi().list();
+      return operatingSystems.values();
    }
 
    @Override
    public OperatingSystem getImage(final String id) {
-
-      Optional<OperatingSystem> first = Iterables.tryFind(api.operatingSystemApi().list(), new Predicate<OperatingSystem>() {
-         @Override
-         public boolean apply(OperatingSystem input) {
-            return input.slug().equals(id);
-         }
-      });
-
-      if (!first.isPresent()) throw new IllegalStateException("Cannot find image with the required slug " + id);
-      return first.get();
+      OperatingSystem operatingSystem = operatingSystems.get(id);
+      if (operatingSystem == null) throw new IllegalStateException("Cannot find image with the required slug " + id);
+      return operatingSystem;
    }
 
    @Override
    public Iterable<Facility> listLocations() {
-      return api.facilityApi().list();
+      Iterable<Facility> facilities = catalogSnapshot.facilities();
+      return facilities != null ? facilities : api.facilityApi().list();
    }
 
    @Override
    public Device getNode(String id) {
-      return api.deviceApi(projectId).get(id);
+      return inventory.get(projectId, id);
    }
 
    @Override
    public void destroyNode(String id) {
       api.deviceApi(projectId).delete(id);
+      inventory.remove(projectId, id);
+   }
+
+   /**
+    * Destroys the given devices, with at most {@link #destroyNodesParallelism} concurrent delete requests, and waits
+    * until they are gone. The termination of all the devices is confirmed from a single project listing per tick,
+    * instead of polling each device.
+    *
+    * @return the ids of the devices confirmed to be terminated before the
+    *         {@link org.jclouds.compute.config.ComputeServiceProperties#TIMEOUT_NODE_TERMINATED} timeout expired.
+    */
+   public Set<String> destroyNodes(Iterable<String> ids) {
+      final ConcurrentMap<String, ListenableFuture<Device>> terminations = Maps.newConcurrentMap();
+      try {
+         ConcurrentTasks.forEach(ImmutableSet.copyOf(ids), new Function<String, Void>() {
+            @Override
+            public Void apply(String id) {
+               try {
+                  destroyNode(id);
+                  terminations.put(id, poller.awaitTerminated(projectId, id));
+               } catch (RuntimeException ex) {
+                  logger.warn(ex, ">> could not destroy device %s", id);
+               }
+               return null;
+            }
+         }, destroyNodesParallelism, userExecutor);
+
+         try {
+            Futures.successfulAsList(terminations.values()).get(nodeTerminatedTimeout, TimeUnit.MILLISECONDS);
+         } catch (TimeoutException ex) {
+            logger.warn(">> not all of the %s devices were terminated in %sms", terminations.size(), nodeTerminatedTimeout);
+         } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw propagate(ex);
+         } catch (ExecutionException ex) {
+            throw propagate(ex.getCause());
+         }
+
+         ImmutableSet.Builder<String> terminated = ImmutableSet.builder();
+         for (Map.Entry<String, ListenableFuture<Device>> entry : terminations.entrySet()) {
+            if (entry.getValue().isDone() && !entry.getValue().isCancelled()) {
+               terminated.add(entry.getKey());
+            }
+         }
+         return terminated.build();
+      } finally {
+         // Stop tracking the devices that were not confirmed in time
+         for (ListenableFuture<Device> future : terminations.values()) {
+            future.cancel(false);
+         }
+      }
    }
 
    @Override
    public void rebootNode(String id) {
-      if (api.deviceApi(projectId).get(id).state() != Device.State.ACTIVE) {
+      if (getNode(id).state() != Device.State.ACTIVE) {
          api.deviceApi(projectId).actions(id, ActionType.REBOOT);
       }
    }
@@ -175,17 +333,51 @@ public class PacketComputeServiceAdapter implements ComputeServiceAdapter<Device
 
    @Override
    public Iterable<Device> listNodes() {
-     return api.deviceApi(projectId).list();
+      return inventory.list(projectId);
+   }
+
+   /**
+    * Lists the nodes from the {@link org.jclouds.packet.domain.DeviceSummary} of each device. This transfers and
+    * retains much less data than {@link #listNodes()}, at the cost of leaving the image details out.
+    */
+   public Iterable<NodeMetadata> listNodeSummaries() {
+      return api.deviceApi(projectId).listSummaries().concat().transform(summaryToNodeMetadata.get());
    }
 
    @Override
    public Iterable<Device> listNodesByIds(final Iterable<String> ids) {
-      return filter(listNodes(), new Predicate<Device>() {
+      final Set<String> idSet = ImmutableSet.copyOf(ids);
+      if (idSet.isEmpty()) {
+         return ImmutableSet.<Device> of();
+      }
+      if (idSet.size() > listNodesByIdsThreshold || inventory.isEnabled()) {
+         return filter(listNodes(), new Predicate<Device>() {
+            @Override
+            public boolean apply(Device device) {
+               return idSet.contains(device.id());
+            }
+         });
+      }
+      return getNodesConcurrently(idSet);
+   }
+
+   /**
+    * Looks up each device individually, with at most {@link #listNodesByIdsParallelism} concurrent requests.
+    */
+   private Iterable<Device> getNodesConcurrently(Set<String> ids) {
+      final Queue<Device> found = new ConcurrentLinkedQueue<Device>();
+      ConcurrentTasks.forEach(ids, new Function<String, Void>() {
          @Override
-         public boolean apply(Device device) {
-            return contains(ids, String.valueOf(device.id()));
+         public Void apply(String id) {
+            Device device = getNode(id);
+            if (device != null) {
+               found.add(device);
+            }
+            return null;
          }
-      });
+      }, listNodesByIdsParallelism, userExecutor);
+
+      return ImmutableSet.copyOf(found);
    }
 
 }
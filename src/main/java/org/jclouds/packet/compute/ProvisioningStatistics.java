@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.packet.compute.internal.ProvisioningTimes.percentile;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.packet.compute.internal.ProvisioningTimes;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Statistics of the time it takes to provision devices, from the create request until the device is ACTIVE, for
+ * each plan, facility and operating system. Only the devices created through the compute service are measured.
+ * <p>
+ * Get it from the injector of the compute context:
+ * <pre>
+ * ProvisioningStatistics stats = context.utils().injector().getInstance(ProvisioningStatistics.class);
+ * </pre>
+ */
+@Singleton
+public class ProvisioningStatistics {
+
+   /**
+    * The provisioning times of a plan, facility and operating system. Times are in milliseconds.
+    */
+   @AutoValue
+   public abstract static class Summary {
+
+      public abstract String plan();
+      public abstract String facility();
+      @Nullable public abstract String operatingSystem();
+      public abstract int count();
+      public abstract long p50();
+      public abstract long p90();
+      public abstract long p99();
+      public abstract long max();
+
+      public static Summary create(String plan, String facility, String operatingSystem, int count, long p50,
+            long p90, long p99, long max) {
+         return new AutoValue_ProvisioningStatistics_Summary(plan, facility, operatingSystem, count, p50, p90, p99,
+               max);
+      }
+
+      Summary() {
+      }
+   }
+
+   private static final Splitter KEY = Splitter.on('@').limit(3);
+
+   private final ProvisioningTimes times;
+
+   @Inject
+   ProvisioningStatistics(ProvisioningTimes times) {
+      this.times = checkNotNull(times, "times cannot be null");
+   }
+
+   /**
+    * Returns the statistics of each plan, facility and operating system with recorded provisioning times.
+    */
+   public List<Summary> summaries() {
+      ImmutableList.Builder<Summary> summaries = ImmutableList.builder();
+      for (Map.Entry<String, long[]> entry : times.durations().entrySet()) {
+         List<String> key = KEY.splitToList(entry.getKey());
+         summaries.add(summary(key.get(0), key.get(1), key.get(2), entry.getValue()));
+      }
+      return summaries.build();
+   }
+
+   /**
+    * Returns the statistics of the given plan, facility and operating system. A <code>null</code> operating system
+    * aggregates all of them.
+    */
+   public Optional<Summary> summary(String plan, String facility, @Nullable String operatingSystem) {
+      long[] durations = times.durations(plan, facility, operatingSystem);
+      return durations.length == 0 ? Optional.<Summary> absent()
+            : Optional.of(summary(plan, facility, operatingSystem, durations));
+   }
+
+   /**
+    * Returns the given percentile, between 0 (exclusive) and 100, of the provisioning times of the given plan,
+    * facility and operating system. A <code>null</code> operating system aggregates all of them.
+    */
+   public Optional<Long> percentileMillis(String plan, String facility, @Nullable String operatingSystem,
+                                          double percentile) {
+      long[] durations = times.durations(plan, facility, operatingSystem);
+      return durations.length == 0 ? Optional.<Long> absent() : Optional.of(percentile(durations, percentile));
+   }
+
+   /**
+    * Returns the estimated time until a device being provisioned by the compute service becomes active.
+    */
+   public Optional<Long> etaMillis(String deviceId) {
+      return times.remainingMillis(deviceId);
+   }
+
+   private static Summary summary(String plan, String facility, String operatingSystem, long[] durations) {
+      return Summary.create(plan, facility, operatingSystem, durations.length, percentile(durations, 50),
+            percentile(durations, 90), percentile(durations, 99), durations[durations.length - 1]);
+   }
+}
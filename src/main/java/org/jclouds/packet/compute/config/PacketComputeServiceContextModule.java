@@ -16,10 +16,8 @@
  */
 package org.jclouds.packet.compute.config;
 
-import static com.google.common.base.Preconditions.checkNotNull;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_RUNNING;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_TERMINATED;
-import static org.jclouds.util.Predicates2.retry;
 
 import org.jclouds.compute.ComputeServiceAdapter;
 import org.jclouds.compute.config.ComputeServiceAdapterContextModule;
@@ -32,13 +30,13 @@ import org.jclouds.compute.strategy.CreateNodesInGroupThenAddToSet;
 import org.jclouds.domain.Credentials;
 import org.jclouds.domain.Location;
 import org.jclouds.location.Provider;
-import org.jclouds.packet.PacketApi;
 import org.jclouds.packet.compute.PacketComputeServiceAdapter;
 import org.jclouds.packet.compute.functions.DeviceStateToStatus;
 import org.jclouds.packet.compute.functions.DeviceToNodeMetadata;
 import org.jclouds.packet.compute.functions.FacilityToLocation;
 import org.jclouds.packet.compute.functions.OperatingSystemToImage;
 import org.jclouds.packet.compute.functions.PlanToHardware;
+import org.jclouds.packet.compute.internal.DeviceStatePoller;
 import org.jclouds.packet.compute.options.PacketTemplateOptions;
 import org.jclouds.packet.compute.strategy.CreateSshKeysThenCreateNodes;
 import org.jclouds.packet.domain.Device;
@@ -46,7 +44,6 @@ import org.jclouds.packet.domain.Facility;
 import org.jclouds.packet.domain.OperatingSystem;
 import org.jclouds.packet.domain.Plan;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
@@ -83,60 +80,20 @@ public class PacketComputeServiceContextModule extends
 
    @Provides
    @Named(TIMEOUT_NODE_RUNNING)
-   protected Predicate<String> provideDeviceRunningPredicate(final PacketApi api,
+   protected Predicate<String> provideDeviceRunningPredicate(DeviceStatePoller poller,
                                                              @Provider final Supplier<Credentials> creds,
-                                                             ComputeServiceConstants.Timeouts timeouts,
-                                                             ComputeServiceConstants.PollPeriod pollPeriod) {
-      return retry(new DeviceInStatusPredicate(api, creds.get().identity, Device.State.ACTIVE), timeouts.nodeRunning,
-              pollPeriod.pollInitialPeriod, pollPeriod.pollMaxPeriod);
+                                                             ComputeServiceConstants.Timeouts timeouts) {
+      // All the devices being created share the same poller, that lists the project devices once per tick
+      return poller.predicate(creds.get().identity, Device.State.ACTIVE, timeouts.nodeRunning);
    }
 
    @Provides
    @Named(TIMEOUT_NODE_TERMINATED)
-   protected Predicate<String> provideDropletTerminatedPredicate(final PacketApi api, @Provider final Supplier<Credentials> creds, ComputeServiceConstants.Timeouts timeouts,
-                                                                  ComputeServiceConstants.PollPeriod pollPeriod) {
-      return retry(new DeviceTerminatedPredicate(api, creds.get().identity), timeouts.nodeTerminated, pollPeriod.pollInitialPeriod,
-              pollPeriod.pollMaxPeriod);
-   }
-
-   @VisibleForTesting
-   static class DeviceInStatusPredicate implements Predicate<String> {
-
-      private final PacketApi api;
-      private final String projectId;
-      private final Device.State state;
-
-      public DeviceInStatusPredicate(PacketApi api, String projectId, Device.State state) {
-         this.api = checkNotNull(api, "api must not be null");
-         this.projectId = checkNotNull(projectId, "projectId must not be null");
-         this.state = checkNotNull(state, "state must not be null");
-      }
-
-      @Override
-      public boolean apply(String input) {
-         checkNotNull(input, "device id");
-         Device device = api.deviceApi(projectId).get(input);
-         return device != null && state == device.state();
-      }
-   }
-
-   @VisibleForTesting
-   static class DeviceTerminatedPredicate implements Predicate<String> {
-
-      private final PacketApi api;
-      private final String projectId;
-
-      public DeviceTerminatedPredicate(PacketApi api, String projectId) {
-         this.api = checkNotNull(api, "api must not be null");
-         this.projectId = checkNotNull(projectId, "projectId must not be null");
-      }
-
-      @Override
-      public boolean apply(String input) {
-         checkNotNull(input, "device id");
-         Device device = api.deviceApi(projectId).get(input);
-         return device == null;
-      }
+   protected Predicate<String> provideDeviceTerminatedPredicate(DeviceStatePoller poller,
+                                                                @Provider final Supplier<Credentials> creds,
+                                                                ComputeServiceConstants.Timeouts timeouts) {
+      // Devices being destroyed concurrently are confirmed from the same project listing on each tick
+      return poller.terminatedPredicate(creds.get().identity, timeouts.nodeTerminated);
    }
 
 }
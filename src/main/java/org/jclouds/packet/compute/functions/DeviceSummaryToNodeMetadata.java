@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.functions;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.collect.Memoized;
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.domain.Location;
+import org.jclouds.packet.domain.Device;
+import org.jclouds.packet.domain.DeviceSummary;
+import org.jclouds.packet.domain.IpAddress;
+
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+/**
+ * Transforms a {@link DeviceSummary} to the jclouds portable model. The
+ * location and hardware are looked up in the cached catalogs by facility code
+ * and plan slug, through an index that is rebuilt only when the memoized
+ * catalogs are refreshed. The image details are not available in the summary.
+ */
+@Singleton
+public class DeviceSummaryToNodeMetadata implements Function<DeviceSummary, NodeMetadata> {
+
+    private final Supplier<Set<? extends Location>> locations;
+    private final Supplier<Set<? extends Hardware>> hardware;
+    private final Function<Device.State, NodeMetadata.Status> toPortableStatus;
+    private final GroupNamingConvention groupNamingConvention;
+    private volatile Index<Location> locationIndex;
+    private volatile Index<Hardware> hardwareIndex;
+
+    @Inject
+    DeviceSummaryToNodeMetadata(@Memoized Supplier<Set<? extends Location>> locations,
+                                @Memoized Supplier<Set<? extends Hardware>> hardware,
+                                Function<Device.State, NodeMetadata.Status> toPortableStatus,
+                                GroupNamingConvention.Factory groupNamingConvention) {
+        this.locations = checkNotNull(locations, "locations cannot be null");
+        this.hardware = checkNotNull(hardware, "hardware cannot be null");
+        this.toPortableStatus = checkNotNull(toPortableStatus, "toPortableStatus cannot be null");
+        this.groupNamingConvention = checkNotNull(groupNamingConvention, "groupNamingConvention cannot be null")
+                .createWithoutPrefix();
+    }
+
+    @Override
+    public NodeMetadata apply(DeviceSummary input) {
+        NodeMetadataBuilder builder = new NodeMetadataBuilder();
+        builder.ids(input.id());
+        builder.name(input.hostname());
+        builder.hostname(input.hostname());
+        builder.group(groupNamingConvention.extractGroup(input.hostname()));
+        builder.status(toPortableStatus.apply(input.state()));
+        if (input.facilityCode() != null) {
+            builder.location(locationsById().get(input.facilityCode()));
+        }
+        if (input.planSlug() != null) {
+            builder.hardware(hardwareById().get(input.planSlug()));
+        }
+
+        ImmutableList.Builder<String> publicAddresses = ImmutableList.builder();
+        ImmutableList.Builder<String> privateAddresses = ImmutableList.builder();
+        for (IpAddress address : input.ipAddresses()) {
+            if (address.publicAddress()) {
+                publicAddresses.add(address.address());
+            } else {
+                privateAddresses.add(address.address());
+            }
+        }
+        builder.publicAddresses(publicAddresses.build());
+        builder.privateAddresses(privateAddresses.build());
+        builder.tags(input.tags());
+
+        return builder.build();
+    }
+
+    private Map<String, Location> locationsById() {
+        Set<? extends Location> current = locations.get();
+        Index<Location> existing = locationIndex;
+        if (existing == null || existing.source != current) {
+            // The memoized supplier returns the same set until it is refreshed
+            existing = new Index<Location>(current, new Function<Location, String>() {
+                @Override
+                public String apply(Location input) {
+                    return input.getId();
+                }
+            });
+            locationIndex = existing;
+        }
+        return existing.byId;
+    }
+
+    private Map<String, Hardware> hardwareById() {
+        Set<? extends Hardware> current = hardware.get();
+        Index<Hardware> existing = hardwareIndex;
+        if (existing == null || existing.source != current) {
+            existing = new Index<Hardware>(current, new Function<Hardware, String>() {
+                @Override
+                public String apply(Hardware input) {
+                    return input.getId();
+                }
+            });
+            hardwareIndex = existing;
+        }
+        return existing.byId;
+    }
+
+    private static final class Index<T> {
+        private final Set<? extends T> source;
+        private final Map<String, T> byId;
+
+        Index(Set<? extends T> source, Function<? super T, String> id) {
+            this.source = source;
+            this.byId = Maps.newHashMap();
+            for (T item : source) {
+                byId.put(id.apply(item), item);
+            }
+        }
+    }
+}
@@ -23,16 +23,23 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.compute.domain.Hardware;
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
 import org.jclouds.compute.functions.GroupNamingConvention;
 import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.domain.Location;
 import org.jclouds.logging.Logger;
 import org.jclouds.packet.domain.Device;
+import org.jclouds.packet.domain.Facility;
 import org.jclouds.packet.domain.IpAddress;
+import org.jclouds.packet.domain.Plan;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.FluentIterable;
 
 /**
@@ -41,6 +48,8 @@ import com.google.common.collect.FluentIterable;
 @Singleton
 public class DeviceToNodeMetadata implements Function<Device, NodeMetadata> {
 
+    private static final int MAX_CACHED_CONVERSIONS = 256;
+
     @Resource
     @Named(ComputeServiceConstants.COMPUTE_LOGGER)
     protected Logger logger = Logger.NULL;
@@ -51,6 +60,13 @@ public class DeviceToNodeMetadata implements Function<Device, NodeMetadata> {
     private final Function<Device.State, NodeMetadata.Status> toPortableStatus;
     private final GroupNamingConvention groupNamingConvention;
 
+    // Keyed by the source objects, so a plan, facility or operating system that changes (for example, the price of a
+    // plan) is converted again instead of being served from the cache
+    private final Cache<Facility, Location> locations = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_CONVERSIONS).build();
+    private final Cache<Plan, Hardware> hardware = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_CONVERSIONS).build();
+    private final Cache<org.jclouds.packet.domain.OperatingSystem, OperatingSystem> operatingSystems = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_CONVERSIONS).build();
+
     @Inject
     DeviceToNodeMetadata(PlanToHardware planToHardware, OperatingSystemToImage operatingSystemToImage, FacilityToLocation facilityToLocation,
                          Function<Device.State, NodeMetadata.Status> toPortableStatus,
@@ -70,10 +86,17 @@ public class DeviceToNodeMetadata implements Function<Device, NodeMetadata> {
         builder.name(input.hostname());
         builder.hostname(input.hostname());
         builder.group(groupNamingConvention.extractGroup(input.hostname()));
-        builder.location(facilityToLocation.apply(input.facility()));
-        builder.hardware(planToHardware.apply(input.plan()));
-        builder.imageId(input.operatingSystem().slug());
-        builder.operatingSystem(operatingSystemToImage.apply(input.operatingSystem()).getOperatingSystem());
+        // Devices decoded with a field projection may not carry these
+        if (input.facility() != null) {
+            builder.location(toLocation(input.facility()));
+        }
+        if (input.plan() != null) {
+            builder.hardware(toHardware(input.plan()));
+        }
+        if (input.operatingSystem() != null) {
+            builder.imageId(input.operatingSystem().slug());
+            builder.operatingSystem(toOperatingSystem(input.operatingSystem()));
+        }
         builder.status(toPortableStatus.apply(input.state()));
 
         if (!input.ipAddresses().isEmpty()) {
@@ -115,4 +138,34 @@ public class DeviceToNodeMetadata implements Function<Device, NodeMetadata> {
 
         return builder.build();
     }
+
+    // A fleet only has a handful of distinct plans, facilities and operating systems, so the converted
+    // objects, which are immutable, are shared by all the nodes that use them.
+
+    private Location toLocation(Facility facility) {
+        Location location = locations.getIfPresent(facility);
+        if (location == null) {
+            location = facilityToLocation.apply(facility);
+            locations.put(facility, location);
+        }
+        return location;
+    }
+
+    private Hardware toHardware(Plan plan) {
+        Hardware hardware = this.hardware.getIfPresent(plan);
+        if (hardware == null) {
+            hardware = planToHardware.apply(plan);
+            this.hardware.put(plan, hardware);
+        }
+        return hardware;
+    }
+
+    private OperatingSystem toOperatingSystem(org.jclouds.packet.domain.OperatingSystem operatingSystem) {
+        OperatingSystem os = operatingSystems.getIfPresent(operatingSystem);
+        if (os == null) {
+            os = operatingSystemToImage.apply(operatingSystem).getOperatingSystem();
+            operatingSystems.put(operatingSystem, os);
+        }
+        return os;
+    }
 }
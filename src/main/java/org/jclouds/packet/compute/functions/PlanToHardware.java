@@ -27,6 +27,7 @@ import org.jclouds.packet.domain.Plan;
 import org.jclouds.packet.domain.Specs;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
@@ -36,6 +37,11 @@ import com.google.common.collect.Lists;
 @Singleton
 public class PlanToHardware implements Function<Plan, Hardware> {
 
+    /**
+     * The user metadata key with the hourly price of the plan.
+     */
+    public static final String HOURLY_PRICE = "pricing.hour";
+
     @Override
     public Hardware apply(Plan plan) {
         HardwareBuilder builder = new HardwareBuilder()
@@ -45,6 +51,9 @@ public class PlanToHardware implements Function<Plan, Hardware> {
                 .processors(getProcessors(plan))
                 .ram(getMemory(plan))
                 .volumes(getVolumes(plan));
+        if (plan.pricing() != null) {
+            builder.userMetadata(ImmutableMap.of(HOURLY_PRICE, String.valueOf(plan.pricing().hour())));
+        }
         return builder.build();
     }
 
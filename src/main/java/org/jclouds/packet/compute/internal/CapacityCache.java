@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.packet.config.PacketProperties.CAPACITY_CACHE_TTL;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.logging.Logger;
+import org.jclouds.packet.PacketApi;
+import org.jclouds.packet.domain.Capacity;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+
+/**
+ * Caches the capacity reported by the API for a short time. A single request returns the capacity of every plan in
+ * every facility, so all the lookups made while the answer is fresh are served from it.
+ */
+@Singleton
+public class CapacityCache {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final Supplier<Map<String, Map<String, Capacity>>> capacity;
+
+   @Inject
+   CapacityCache(final PacketApi api, @Named(CAPACITY_CACHE_TTL) long ttl) {
+      checkNotNull(api, "api cannot be null");
+      checkArgument(ttl > 0, "ttl must be greater than 0");
+      this.capacity = Suppliers.memoizeWithExpiration(new Supplier<Map<String, Map<String, Capacity>>>() {
+         @Override
+         public Map<String, Map<String, Capacity>> get() {
+            return api.capacityApi().list();
+         }
+      }, ttl, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Returns the capacity of the plan in the facility, or absent if it is unknown.
+    */
+   public Optional<Capacity> get(String facility, String plan) {
+      Map<String, Map<String, Capacity>> current;
+      try {
+         current = capacity.get();
+      } catch (RuntimeException ex) {
+         // Failures are not cached, so the next lookup tries again
+         logger.warn(ex, ">> could not get the capacity of the facilities");
+         return Optional.absent();
+      }
+      Map<String, Capacity> plans = current.get(checkNotNull(facility, "facility"));
+      return Optional.fromNullable(plans == null ? null : plans.get(checkNotNull(plan, "plan")));
+   }
+
+   /**
+    * Whether the plan can be provisioned in the facility. An unknown capacity is considered available, so the
+    * capacity endpoint never prevents creating devices.
+    */
+   public boolean isAvailable(String facility, String plan) {
+      Optional<Capacity> current = get(facility, plan);
+      return !current.isPresent() || current.get().isAvailable();
+   }
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.jclouds.packet.config.PacketProperties.CATALOG_SNAPSHOT_DIR;
+import static org.jclouds.packet.config.PacketProperties.CATALOG_SNAPSHOT_MAX_AGE;
+
+import java.beans.ConstructorProperties;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.json.Json;
+import org.jclouds.location.Provider;
+import org.jclouds.logging.Logger;
+import org.jclouds.packet.PacketApi;
+import org.jclouds.packet.domain.Facility;
+import org.jclouds.packet.domain.OperatingSystem;
+import org.jclouds.packet.domain.Plan;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Keeps a copy of the plan, facility and operating system catalogs on disk, so a new context can build its first
+ * template without downloading them.
+ * <p>
+ * Each catalog is served from the snapshot only once; subsequent lookups go to the API as usual. The first lookup
+ * also refreshes the snapshot in the background, so the next context starts with up to date catalogs. Snapshots
+ * older than {@link org.jclouds.packet.config.PacketProperties#CATALOG_SNAPSHOT_MAX_AGE} are ignored.
+ */
+@Singleton
+public class CatalogSnapshot {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final PacketApi api;
+   private final Json json;
+   private final File file;
+   private final long maxAge;
+   private final ListeningExecutorService userExecutor;
+   private final AtomicBoolean refreshed = new AtomicBoolean();
+   private final AtomicBoolean plansServed = new AtomicBoolean();
+   private final AtomicBoolean facilitiesServed = new AtomicBoolean();
+   private final AtomicBoolean operatingSystemsServed = new AtomicBoolean();
+   private final Supplier<Contents> contents = Suppliers.memoize(new Supplier<Contents>() {
+      @Override
+      public Contents get() {
+         return load();
+      }
+   });
+
+   @Inject
+   CatalogSnapshot(PacketApi api, Json json, @Named(CATALOG_SNAPSHOT_DIR) String directory,
+                   @Named(CATALOG_SNAPSHOT_MAX_AGE) long maxAge, @Provider Supplier<URI> endpoint,
+                   @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      this(api, json, isNullOrEmpty(directory) ? null : new File(directory), endpoint.get().toString(), maxAge,
+            userExecutor);
+   }
+
+   @VisibleForTesting
+   CatalogSnapshot(PacketApi api, Json json, @Nullable File directory, String endpoint, long maxAge,
+                   ListeningExecutorService userExecutor) {
+      this.api = checkNotNull(api, "api cannot be null");
+      this.json = checkNotNull(json, "json cannot be null");
+      this.file = directory == null ? null : new File(directory, fileName(endpoint));
+      this.maxAge = maxAge;
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor cannot be null");
+   }
+
+   public boolean isEnabled() {
+      return file != null;
+   }
+
+   /**
+    * Returns the plans in the snapshot, or {@code null} if there is no usable snapshot or they were already served.
+    */
+   @Nullable
+   public List<Plan> plans() {
+      Contents snapshot = serve(plansServed);
+      return snapshot == null ? null : snapshot.plans;
+   }
+
+   /**
+    * Returns the facilities in the snapshot, or {@code null} if there is no usable snapshot or they were already
+    * served.
+    */
+   @Nullable
+   public List<Facility> facilities() {
+      Contents snapshot = serve(facilitiesServed);
+      return snapshot == null ? null : snapshot.facilities;
+   }
+
+   /**
+    * Returns the operating systems in the snapshot, or {@code null} if there is no usable snapshot or they were
+    * already served.
+    */
+   @Nullable
+   public List<OperatingSystem> operatingSystems() {
+      Contents snapshot = serve(operatingSystemsServed);
+      return snapshot == null ? null : snapshot.operatingSystems;
+   }
+
+   private Contents serve(AtomicBoolean served) {
+      if (!isEnabled()) {
+         return null;
+      }
+      Contents snapshot = contents.get();
+      if (refreshed.compareAndSet(false, true)) {
+         userExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+               refresh();
+            }
+         });
+      }
+      return snapshot != null && served.compareAndSet(false, true) ? snapshot : null;
+   }
+
+   /**
+    * Downloads the catalogs and replaces the snapshot on disk.
+    */
+   @VisibleForTesting
+   void refresh() {
+      try {
+         write(new Contents(System.currentTimeMillis(), api.planApi().list(), api.facilityApi().list(),
+               api.operatingSystemApi().list()));
+      } catch (Exception ex) {
+         logger.warn(ex, "<< could not refresh the catalog snapshot %s", file);
+      }
+   }
+
+   private Contents load() {
+      if (!file.isFile()) {
+         logger.debug(">> no catalog snapshot found at %s", file);
+         return null;
+      }
+      try {
+         Contents snapshot = json.fromJson(Files.toString(file, Charsets.UTF_8), Contents.class);
+         if (snapshot == null || System.currentTimeMillis() - snapshot.createdAt > maxAge) {
+            logger.debug(">> ignoring expired catalog snapshot %s", file);
+            return null;
+         }
+         return snapshot;
+      } catch (Exception ex) {
+         logger.warn(ex, "<< could not read the catalog snapshot %s", file);
+         return null;
+      }
+   }
+
+   private void write(Contents snapshot) throws IOException {
+      File directory = file.getParentFile();
+      if (!directory.isDirectory() && !directory.mkdirs()) {
+         throw new IOException("could not create directory " + directory);
+      }
+      // Write to a temporary file first, so concurrent readers never see a partial snapshot
+      File tmp = File.createTempFile(file.getName(), ".tmp", directory);
+      try {
+         Files.write(json.toJson(snapshot), tmp, Charsets.UTF_8);
+         java.nio.file.Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+               StandardCopyOption.ATOMIC_MOVE);
+         logger.debug("<< wrote catalog snapshot %s", file);
+      } finally {
+         tmp.delete();
+      }
+   }
+
+   private static String fileName(String endpoint) {
+      return "packet-catalog-" + Hashing.sha1().hashString(endpoint, Charsets.UTF_8).toString().substring(0, 12)
+            + ".json";
+   }
+
+   /**
+    * The serialized form of the snapshot.
+    */
+   public static final class Contents {
+      private final long createdAt;
+      private final List<Plan> plans;
+      private final List<Facility> facilities;
+      private final List<OperatingSystem> operatingSystems;
+
+      @ConstructorProperties({ "createdAt", "plans", "facilities", "operatingSystems" })
+      public Contents(long createdAt, List<Plan> plans, List<Facility> facilities,
+                      List<OperatingSystem> operatingSystems) {
+         this.createdAt = createdAt;
+         this.plans = ImmutableList.copyOf(checkNotNull(plans, "plans"));
+         this.facilities = ImmutableList.copyOf(checkNotNull(facilities, "facilities"));
+         this.operatingSystems = ImmutableList.copyOf(checkNotNull(operatingSystems, "operatingSystems"));
+      }
+   }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.packet.domain.options.ListOptions.Builder.page;
+
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.logging.Logger;
+import org.jclouds.packet.PacketApi;
+import org.jclouds.packet.domain.Event;
+import org.jclouds.packet.domain.Href;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+/**
+ * Reads the events feed of each project incrementally, to find out which devices changed since the previous read.
+ * <p>
+ * A cursor with the newest event seen is kept per project, and each read only fetches the pages with the events
+ * newer than the cursor. The changes are unknown on the first read of a project, when the feed cannot be read, and
+ * when there are more new events than the pages read at once; callers are expected to fall back to listing the
+ * devices in those cases.
+ */
+@Singleton
+public class DeviceEventFeed {
+
+   @VisibleForTesting
+   static final int PAGE_SIZE = 50;
+   @VisibleForTesting
+   static final int MAX_PAGES = 4;
+
+   private static final String DEVICES_PATH = "/devices/";
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final PacketApi api;
+   private final ConcurrentMap<String, Cursor> cursors = Maps.newConcurrentMap();
+
+   @Inject
+   DeviceEventFeed(PacketApi api) {
+      this.api = checkNotNull(api, "api cannot be null");
+   }
+
+   /**
+    * Returns the ids of the devices of the project with events since the previous call, or absent if the changes
+    * are unknown.
+    */
+   public Optional<Set<String>> changedDevices(String projectId) {
+      Cursor previous = cursors.get(projectId);
+      ImmutableSet.Builder<String> changed = ImmutableSet.builder();
+      Event newest = null;
+      boolean complete = false;
+      try {
+         for (int page = 1; page <= MAX_PAGES && !complete; page++) {
+            IterableWithMarker<Event> events = api.eventApi().listByProject(projectId, page(page).perPage(PAGE_SIZE));
+            for (Event event : events) {
+               if (newest == null) {
+                  newest = event;
+               }
+               if (previous == null || previous.covers(event)) {
+                  complete = true;
+                  break;
+               }
+               changed.addAll(deviceIds(event));
+            }
+            complete |= !events.nextMarker().isPresent();
+         }
+      } catch (RuntimeException ex) {
+         logger.warn(ex, ">> could not read the events of project %s", projectId);
+         cursors.remove(projectId);
+         return Optional.absent();
+      }
+
+      if (newest != null) {
+         cursors.put(projectId, new Cursor(newest.id(), newest.createdAt()));
+      } else if (previous == null) {
+         cursors.put(projectId, Cursor.EMPTY);
+      }
+      return previous != null && complete ? Optional.<Set<String>> of(changed.build()) : Optional.<Set<String>> absent();
+   }
+
+   /**
+    * Forgets the cursor of the project, so the next read starts over.
+    */
+   public void reset(String projectId) {
+      cursors.remove(projectId);
+   }
+
+   private static Set<String> deviceIds(Event event) {
+      ImmutableSet.Builder<String> ids = ImmutableSet.builder();
+      for (Href relationship : event.relationships()) {
+         int index = relationship.href().lastIndexOf(DEVICES_PATH);
+         if (index >= 0) {
+            String id = relationship.href().substring(index + DEVICES_PATH.length());
+            int end = id.indexOf('/');
+            ids.add(end < 0 ? id : id.substring(0, end));
+         }
+      }
+      return ids.build();
+   }
+
+   private static final class Cursor {
+      private static final Cursor EMPTY = new Cursor(null, new Date(0));
+
+      private final String eventId;
+      private final Date createdAt;
+
+      Cursor(String eventId, Date createdAt) {
+         this.eventId = eventId;
+         this.createdAt = createdAt;
+      }
+
+      /**
+       * Whether the given event was already seen. Events are listed newest first.
+       */
+      boolean covers(Event event) {
+         return event.id().equals(eventId) || event.createdAt().before(createdAt);
+      }
+   }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.packet.config.PacketProperties.DEVICE_PAGE_SIZE;
+import static org.jclouds.packet.config.PacketProperties.INVENTORY_CACHE_ENABLED;
+import static org.jclouds.packet.config.PacketProperties.INVENTORY_CACHE_MAX_STALENESS;
+import static org.jclouds.packet.config.PacketProperties.INVENTORY_CACHE_TTL;
+import static org.jclouds.packet.domain.options.ListOptions.Builder.perPage;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.logging.Logger;
+import org.jclouds.packet.PacketApi;
+import org.jclouds.packet.domain.Device;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Keeps the inventory of devices of each project, so the compute service does not have to list all the devices
+ * in the project every time a node is listed or looked up.
+ * <p>
+ * The cache is opt-in. When it is disabled, every call goes straight to the {@link PacketApi}. When enabled, the
+ * inventory of a project is loaded with a single (paginated) listing and refreshed on the first access after
+ * {@link org.jclouds.packet.config.PacketProperties#INVENTORY_CACHE_TTL}. The refresh runs in the user executor, so
+ * callers never wait for it: while it is in progress, or if it fails, the previous inventory is served until it is
+ * older than {@link org.jclouds.packet.config.PacketProperties#INVENTORY_CACHE_MAX_STALENESS}. Devices created or
+ * deleted through the compute service are written through to the cached inventory.
+ */
+@Singleton
+public class DeviceInventoryCache {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final PacketApi api;
+   private final boolean enabled;
+   private final int devicePageSize;
+   private final LoadingCache<String, Inventory> inventories;
+
+   @Inject
+   DeviceInventoryCache(PacketApi api, @Named(INVENTORY_CACHE_ENABLED) boolean enabled,
+                        @Named(INVENTORY_CACHE_TTL) long ttl, @Named(INVENTORY_CACHE_MAX_STALENESS) long maxStaleness,
+                        @Named(DEVICE_PAGE_SIZE) int devicePageSize,
+                        @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      this(api, enabled, ttl, maxStaleness, devicePageSize, userExecutor, Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   DeviceInventoryCache(PacketApi api, boolean enabled, long ttl, long maxStaleness, int devicePageSize,
+                        final ListeningExecutorService userExecutor, Ticker ticker) {
+      checkArgument(ttl > 0, "ttl must be greater than 0");
+      checkArgument(maxStaleness >= ttl, "maxStaleness must be greater than or equal to the ttl");
+      this.api = checkNotNull(api, "api cannot be null");
+      this.enabled = enabled;
+      this.devicePageSize = devicePageSize;
+      this.inventories = CacheBuilder.newBuilder()
+            .refreshAfterWrite(ttl, TimeUnit.MILLISECONDS)
+            .expireAfterWrite(maxStaleness, TimeUnit.MILLISECONDS)
+            .ticker(checkNotNull(ticker, "ticker cannot be null"))
+            .recordStats()
+            .build(new CacheLoader<String, Inventory>() {
+               @Override
+               public Inventory load(String projectId) {
+                  logger.debug(">> loading the device inventory of project %s", projectId);
+                  return new Inventory(listDevices(projectId));
+               }
+
+               @Override
+               public ListenableFuture<Inventory> reload(final String projectId, Inventory oldValue) {
+                  return userExecutor.submit(new Callable<Inventory>() {
+                     @Override
+                     public Inventory call() {
+                        return load(projectId);
+                     }
+                  });
+               }
+            });
+   }
+
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   /**
+    * Returns all the devices in the given project.
+    */
+   public Iterable<Device> list(String projectId) {
+      if (!enabled) {
+         // Pages are fetched lazily, so devices can be consumed before the last page is received
+         return listDevices(projectId);
+      }
+      return ImmutableList.copyOf(inventory(projectId).devices.values());
+   }
+
+   /**
+    * Returns the device with the given id, or null if it does not exist. Devices that are not in the cached
+    * inventory are looked up in the API but not added to it: a device that has just been removed may still be
+    * returned while it is being deprovisioned, and must not be served from the inventory afterwards.
+    */
+   public Device get(String projectId, String deviceId) {
+      if (!enabled) {
+         return api.deviceApi(projectId).get(deviceId);
+      }
+      Device device = inventory(projectId).devices.get(deviceId);
+      return device != null ? device : api.deviceApi(projectId).get(deviceId);
+   }
+
+   /**
+    * Writes a device that has been created or updated through to the cached inventory, if any.
+    */
+   public void put(String projectId, Device device) {
+      checkNotNull(device, "device cannot be null");
+      Inventory inventory = enabled ? inventories.getIfPresent(projectId) : null;
+      if (inventory != null) {
+         inventory.devices.put(device.id(), device);
+      }
+   }
+
+   /**
+    * Removes a device that has been deleted from the cached inventory, if any.
+    */
+   public void remove(String projectId, String deviceId) {
+      Inventory inventory = enabled ? inventories.getIfPresent(projectId) : null;
+      if (inventory != null) {
+         inventory.devices.remove(deviceId);
+      }
+   }
+
+   /**
+    * Discards the cached inventory of the given project.
+    */
+   public void invalidate(String projectId) {
+      inventories.invalidate(projectId);
+   }
+
+   /**
+    * Returns the hit and miss counters of the cached inventories.
+    */
+   public CacheStats stats() {
+      return inventories.stats();
+   }
+
+   private Iterable<Device> listDevices(String projectId) {
+      return api.deviceApi(projectId).listPaged(perPage(devicePageSize)).concat();
+   }
+
+   private Inventory inventory(String projectId) {
+      try {
+         return inventories.getUnchecked(projectId);
+      } catch (UncheckedExecutionException e) {
+         // Propagate the original exception (such as an AuthorizationException) as the API would do
+         if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+         }
+         throw e;
+      }
+   }
+
+   private static class Inventory {
+      private final ConcurrentMap<String, Device> devices = Maps.newConcurrentMap();
+
+      Inventory(Iterable<Device> devices) {
+         for (Device device : devices) {
+            this.devices.put(device.id(), device);
+         }
+      }
+   }
+
+   @VisibleForTesting
+   Map<String, Device> cachedDevices(String projectId) {
+      Inventory inventory = inventories.getIfPresent(projectId);
+      return inventory == null ? null : inventory.devices;
+   }
+}
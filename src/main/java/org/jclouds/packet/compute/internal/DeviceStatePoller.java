@@ -0,0 +1,405 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.packet.config.PacketProperties.DEVICE_PAGE_SIZE;
+import static org.jclouds.packet.config.PacketProperties.DEVICE_STATE_POLLER_EVENTS_ENABLED;
+import static org.jclouds.packet.config.PacketProperties.DEVICE_STATE_POLLER_PERIOD;
+import static org.jclouds.packet.domain.options.ListOptions.Builder.perPage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.logging.Logger;
+import org.jclouds.packet.PacketApi;
+import org.jclouds.packet.domain.Device;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Tracks the state of all the devices the compute service is waiting for with a single, shared poller.
+ * <p>
+ * Instead of polling each device on its own, every tick lists the devices of each project that has pending
+ * devices once, and completes the futures of the devices that reached the expected condition. The number of API
+ * calls per tick does not depend on the number of pending devices. The poller only runs while there are pending
+ * devices.
+ * <p>
+ * When the events feed is enabled, each tick reads the new events of the project instead, and only looks up the
+ * devices with new events and the ones that were just registered. When there are more than
+ * {@link #MAX_DEVICE_LOOKUPS} of them, a single listing is cheaper than looking them up one by one. The poller also
+ * falls back to listing the devices when the feed cannot be read, and every {@link #RECONCILE_TICKS} ticks, in case
+ * an event was missed.
+ * <p>
+ * Devices being provisioned can be given a {@link ProvisioningTimes.PollSchedule}, so they are only checked on the
+ * ticks where they are likely to be ready, or as soon as the feed has new events for them.
+ */
+@Singleton
+public class DeviceStatePoller {
+
+   @VisibleForTesting
+   static final int RECONCILE_TICKS = 12;
+   @VisibleForTesting
+   static final int MAX_DEVICE_LOOKUPS = 5;
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final PacketApi api;
+   private final ListeningScheduledExecutorService scheduler;
+   private final long period;
+   private final int devicePageSize;
+   private final DeviceEventFeed eventFeed;
+   private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<Waiter>();
+   private final AtomicLong ticks = new AtomicLong();
+
+   // Guarded by this
+   private ScheduledFuture<?> task;
+
+   @Inject
+   DeviceStatePoller(PacketApi api, @Named(Constants.PROPERTY_SCHEDULER_THREADS) ListeningScheduledExecutorService scheduler,
+                     @Named(DEVICE_STATE_POLLER_PERIOD) long period, @Named(DEVICE_PAGE_SIZE) int devicePageSize,
+                     @Named(DEVICE_STATE_POLLER_EVENTS_ENABLED) boolean eventsEnabled, DeviceEventFeed eventFeed) {
+      this(api, scheduler, period, devicePageSize, eventsEnabled ? eventFeed : null);
+   }
+
+   @VisibleForTesting
+   DeviceStatePoller(PacketApi api, ListeningScheduledExecutorService scheduler, long period, int devicePageSize) {
+      this(api, scheduler, period, devicePageSize, null);
+   }
+
+   @VisibleForTesting
+   DeviceStatePoller(PacketApi api, ListeningScheduledExecutorService scheduler, long period, int devicePageSize,
+                     @Nullable DeviceEventFeed eventFeed) {
+      checkArgument(period > 0, "period must be greater than 0");
+      this.api = checkNotNull(api, "api cannot be null");
+      this.scheduler = checkNotNull(scheduler, "scheduler cannot be null");
+      this.period = period;
+      this.devicePageSize = devicePageSize;
+      this.eventFeed = eventFeed;
+   }
+
+   /**
+    * Returns a future that completes with the device once it is in the given state.
+    */
+   public ListenableFuture<Device> awaitState(String projectId, String deviceId, Device.State state) {
+      return register(projectId, deviceId, inState(state), null);
+   }
+
+   /**
+    * Returns a future that completes with the device once it is in the given state, or fails with a
+    * {@link TimeoutException} if the device does not reach the state in the given time.
+    */
+   public ListenableFuture<Device> awaitState(String projectId, String deviceId, Device.State state,
+                                              long timeoutMillis) {
+      return awaitState(projectId, deviceId, state, timeoutMillis, null);
+   }
+
+   /**
+    * Same as {@link #awaitState(String, String, Device.State, long)}, but the device is only checked on the ticks
+    * where the given schedule is due.
+    */
+   public ListenableFuture<Device> awaitState(final String projectId, final String deviceId, final Device.State state,
+                                              final long timeoutMillis,
+                                              @Nullable ProvisioningTimes.PollSchedule schedule) {
+      final SettableFuture<Device> future = register(projectId, deviceId, inState(state), schedule);
+      scheduler.schedule(new Runnable() {
+         @Override
+         public void run() {
+            // No-op if the future has already completed
+            future.setException(new TimeoutException(String.format("Device %s in project %s did not reach the %s state in %sms",
+                  deviceId, projectId, state, timeoutMillis)));
+         }
+      }, timeoutMillis, TimeUnit.MILLISECONDS);
+      return future;
+   }
+
+   /**
+    * Returns a future that completes with the device once the given condition holds. The condition is evaluated
+    * with <code>null</code> while the device is not listed in the project. Cancelling the future stops tracking
+    * the device.
+    */
+   public ListenableFuture<Device> await(String projectId, String deviceId, Predicate<Device> condition) {
+      return register(projectId, deviceId, condition, null);
+   }
+
+   /**
+    * Returns a future that completes once the device is no longer listed in the project. The future completes with
+    * <code>null</code>.
+    */
+   public ListenableFuture<Device> awaitTerminated(String projectId, String deviceId) {
+      return register(projectId, deviceId, TERMINATED, null);
+   }
+
+   private SettableFuture<Device> register(String projectId, String deviceId, Predicate<Device> condition,
+                                           @Nullable ProvisioningTimes.PollSchedule schedule) {
+      Waiter waiter = new Waiter(checkNotNull(projectId, "projectId cannot be null"),
+            checkNotNull(deviceId, "deviceId cannot be null"), checkNotNull(condition, "condition cannot be null"),
+            schedule);
+      synchronized (this) {
+         waiters.add(waiter);
+         if (task == null) {
+            task = scheduler.scheduleWithFixedDelay(new Runnable() {
+               @Override
+               public void run() {
+                  try {
+                     poll();
+                  } catch (RuntimeException ex) {
+                     // Never let an exception cancel the periodic task
+                     logger.warn(ex, ">> error polling the state of the pending devices");
+                  }
+               }
+            }, period, period, TimeUnit.MILLISECONDS);
+         }
+      }
+      return waiter.future;
+   }
+
+   /**
+    * Returns a predicate that blocks until the device with the given id is in the given state, or the timeout
+    * expires.
+    */
+   public Predicate<String> predicate(final String projectId, final Device.State state, final long timeoutMillis) {
+      return new Predicate<String>() {
+         @Override
+         public boolean apply(String deviceId) {
+            return await(awaitState(projectId, checkNotNull(deviceId, "device id"), state), timeoutMillis);
+         }
+      };
+   }
+
+   /**
+    * Returns a predicate that blocks until the device with the given id is no longer listed in the project, or the
+    * timeout expires.
+    */
+   public Predicate<String> terminatedPredicate(final String projectId, final long timeoutMillis) {
+      return new Predicate<String>() {
+         @Override
+         public boolean apply(String deviceId) {
+            return await(awaitTerminated(projectId, checkNotNull(deviceId, "device id")), timeoutMillis);
+         }
+      };
+   }
+
+   private static boolean await(ListenableFuture<Device> future, long timeoutMillis) {
+      try {
+         future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+         return true;
+      } catch (TimeoutException ex) {
+         return false;
+      } catch (InterruptedException ex) {
+         Thread.currentThread().interrupt();
+         return false;
+      } catch (ExecutionException ex) {
+         throw Throwables.propagate(ex.getCause());
+      } finally {
+         future.cancel(false);
+      }
+   }
+
+   /**
+    * Returns the number of devices being tracked.
+    */
+   public int pending() {
+      return waiters.size();
+   }
+
+   private static final Predicate<Device> TERMINATED = new Predicate<Device>() {
+      @Override
+      public boolean apply(Device input) {
+         return input == null;
+      }
+   };
+
+   private static Predicate<Device> inState(final Device.State state) {
+      checkNotNull(state, "state cannot be null");
+      return new Predicate<Device>() {
+         @Override
+         public boolean apply(Device input) {
+            return input != null && input.state() == state;
+         }
+      };
+   }
+
+   @VisibleForTesting
+   void poll() {
+      Multimap<String, Waiter> byProject = ArrayListMultimap.create();
+      for (Waiter waiter : waiters) {
+         if (waiter.future.isDone()) {
+            waiters.remove(waiter);
+         } else {
+            byProject.put(waiter.projectId, waiter);
+         }
+      }
+
+      boolean reconcile = ticks.incrementAndGet() % RECONCILE_TICKS == 0;
+      for (Map.Entry<String, Collection<Waiter>> entry : byProject.asMap().entrySet()) {
+         // The events are read before looking at the schedules, so the cursor never skips the events of a device
+         // that is not due yet
+         Optional<Set<String>> changed = changedDevices(entry.getKey(), reconcile);
+         Collection<Waiter> candidates = changed.isPresent() ? affected(entry.getValue(), changed.get())
+               : due(entry.getValue());
+         if (candidates.isEmpty()) {
+            continue;
+         }
+         Map<String, Device> devices;
+         try {
+            Set<String> deviceIds = deviceIds(candidates);
+            devices = changed.isPresent() && deviceIds.size() <= MAX_DEVICE_LOOKUPS
+                  ? getDevices(entry.getKey(), deviceIds) : listDevices(entry.getKey());
+         } catch (RuntimeException ex) {
+            // Transient errors are retried in the next tick. Waiters give up on their own timeouts.
+            logger.warn(ex, ">> could not list the devices of project %s", entry.getKey());
+            if (changed.isPresent()) {
+               // The events were consumed, so the next tick has to list the devices
+               eventFeed.reset(entry.getKey());
+            }
+            continue;
+         }
+         for (Waiter waiter : candidates) {
+            Device device = devices.get(waiter.deviceId);
+            waiter.checked = true;
+            try {
+               if (waiter.condition.apply(device)) {
+                  waiter.future.set(device);
+                  waiters.remove(waiter);
+               } else if (waiter.schedule != null) {
+                  waiter.schedule.checked();
+               }
+            } catch (RuntimeException ex) {
+               waiter.future.setException(ex);
+               waiters.remove(waiter);
+            }
+         }
+      }
+
+      synchronized (this) {
+         if (waiters.isEmpty() && task != null) {
+            task.cancel(false);
+            task = null;
+         }
+      }
+   }
+
+   private Optional<Set<String>> changedDevices(String projectId, boolean reconcile) {
+      if (eventFeed == null) {
+         return Optional.absent();
+      }
+      // The feed is read even when reconciling, so the cursor keeps up with the events
+      Optional<Set<String>> changed = eventFeed.changedDevices(projectId);
+      return reconcile ? Optional.<Set<String>> absent() : changed;
+   }
+
+   /**
+    * Returns the waiters with new events, regardless of their schedule, and the due ones that were just registered.
+    */
+   private static Collection<Waiter> affected(Collection<Waiter> waiters, Set<String> changed) {
+      List<Waiter> affected = Lists.newArrayList();
+      for (Waiter waiter : waiters) {
+         if (changed.contains(waiter.deviceId) || (!waiter.checked && waiter.isDue())) {
+            affected.add(waiter);
+         }
+      }
+      return affected;
+   }
+
+   private static Collection<Waiter> due(Collection<Waiter> waiters) {
+      List<Waiter> due = Lists.newArrayList();
+      for (Waiter waiter : waiters) {
+         if (waiter.isDue()) {
+            due.add(waiter);
+         }
+      }
+      return due;
+   }
+
+   private static Set<String> deviceIds(Collection<Waiter> waiters) {
+      Set<String> deviceIds = Sets.newHashSet();
+      for (Waiter waiter : waiters) {
+         deviceIds.add(waiter.deviceId);
+      }
+      return deviceIds;
+   }
+
+   private Map<String, Device> getDevices(String projectId, Set<String> deviceIds) {
+      // Null values are devices that are not found
+      Map<String, Device> devices = Maps.newHashMap();
+      for (String deviceId : deviceIds) {
+         devices.put(deviceId, api.deviceApi(projectId).get(deviceId));
+      }
+      return devices;
+   }
+
+   private Map<String, Device> listDevices(String projectId) {
+      Map<String, Device> devices = Maps.newHashMap();
+      for (Device device : api.deviceApi(projectId).listPaged(perPage(devicePageSize)).concat()) {
+         devices.put(device.id(), device);
+      }
+      return devices;
+   }
+
+   private static class Waiter {
+      private final String projectId;
+      private final String deviceId;
+      private final Predicate<Device> condition;
+      private final ProvisioningTimes.PollSchedule schedule;
+      private final SettableFuture<Device> future = SettableFuture.create();
+      // Whether the condition has been evaluated at least once
+      private volatile boolean checked;
+
+      Waiter(String projectId, String deviceId, Predicate<Device> condition, ProvisioningTimes.PollSchedule schedule) {
+         this.projectId = projectId;
+         this.deviceId = deviceId;
+         this.condition = condition;
+         this.schedule = schedule;
+      }
+
+      boolean isDue() {
+         return schedule == null || schedule.isDue();
+      }
+   }
+}
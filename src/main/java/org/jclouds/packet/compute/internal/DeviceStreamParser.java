@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.http.HttpUtils.releasePayload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.packet.PacketApi;
+import org.jclouds.packet.config.PacketProperties;
+import org.jclouds.packet.domain.Device;
+import org.jclouds.packet.domain.Meta;
+import org.jclouds.packet.domain.PaginatedCollection;
+import org.jclouds.packet.domain.options.ListOptions;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Decodes device listings incrementally from the response stream.
+ * <p>
+ * Each device is handed to the consumer as soon as it has been read, and only
+ * the requested fields are materialized, so the memory needed to walk the
+ * inventory depends on the size of one device and not on the size of the page.
+ * The fields in {@link #REQUIRED_FIELDS} are always read; the rest of the
+ * fields of the returned devices are empty or <code>null</code> unless they
+ * are requested.
+ */
+@Singleton
+public class DeviceStreamParser {
+
+   public interface Consumer {
+      void accept(Device device);
+   }
+
+   /**
+    * The fields needed to build a {@link Device}.
+    */
+   public static final Set<String> REQUIRED_FIELDS = ImmutableSet.of("id", "short_id", "hostname", "state",
+         "billing_cycle", "user", "iqn", "locked", "bonding_mode", "created_at", "updated_at", "project",
+         "project_lite", "href");
+
+   /**
+    * Reads every field of the devices.
+    */
+   public static final Set<String> ALL_FIELDS = ImmutableSet.<String> builder().addAll(REQUIRED_FIELDS)
+         .add("description", "tags", "operating_system", "facility", "volumes", "ip_addresses", "plan",
+               "root_password", "userdata").build();
+
+   private final Gson gson;
+   private final PacketApi api;
+   private final int pageSize;
+
+   @Inject
+   DeviceStreamParser(Gson gson, PacketApi api, @Named(PacketProperties.DEVICE_PAGE_SIZE) int pageSize) {
+      this.gson = checkNotNull(gson, "gson cannot be null");
+      this.api = checkNotNull(api, "api cannot be null");
+      this.pageSize = pageSize;
+   }
+
+   /**
+    * Walks all the devices in the given project, one page at a time, reading
+    * only the given fields.
+    *
+    * @return the number of devices handed to the consumer.
+    */
+   public int forEach(String projectId, Set<String> fields, Consumer consumer) {
+      int count = 0;
+      Optional<ListOptions> next = Optional.of(ListOptions.Builder.perPage(pageSize));
+      while (next.isPresent()) {
+         HttpResponse response = api.deviceApi(projectId).listResponse(next.get());
+         if (response == null || response.getPayload() == null) {
+            break;
+         }
+         try {
+            Page page = parse(response.getPayload().openStream(), fields, consumer);
+            count += page.count;
+            next = PaginatedCollection.nextPage(page.meta);
+         } catch (IOException e) {
+            throw Throwables.propagate(e);
+         } finally {
+            releasePayload(response);
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Reads a page of devices from the given stream.
+    */
+   public Page parse(InputStream in, Set<String> fields, Consumer consumer) throws IOException {
+      JsonReader reader = new JsonReader(new InputStreamReader(in, Charsets.UTF_8));
+      try {
+         Meta meta = null;
+         int count = 0;
+         reader.beginObject();
+         while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("devices".equals(name)) {
+               reader.beginArray();
+               while (reader.hasNext()) {
+                  consumer.accept(readDevice(reader, fields));
+                  count++;
+               }
+               reader.endArray();
+            } else if ("meta".equals(name)) {
+               meta = gson.fromJson(reader, Meta.class);
+            } else {
+               reader.skipValue();
+            }
+         }
+         reader.endObject();
+         return new Page(count, meta);
+      } finally {
+         reader.close();
+      }
+   }
+
+   private Device readDevice(JsonReader reader, Set<String> fields) throws IOException {
+      JsonObject device = new JsonObject();
+      reader.beginObject();
+      while (reader.hasNext()) {
+         String name = reader.nextName();
+         if (REQUIRED_FIELDS.contains(name) || fields.contains(name)) {
+            device.add(name, gson.fromJson(reader, JsonElement.class));
+         } else {
+            reader.skipValue();
+         }
+      }
+      reader.endObject();
+      return gson.fromJson(device, Device.class);
+   }
+
+   public static final class Page {
+      private final int count;
+      private final Meta meta;
+
+      Page(int count, @Nullable Meta meta) {
+         this.count = count;
+         this.meta = meta;
+      }
+
+      public int count() {
+         return count;
+      }
+
+      @Nullable
+      public Meta meta() {
+         return meta;
+      }
+   }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ * A read-only catalog of Packet resources (operating systems, plans, etc), indexed by a unique key such as the
+ * slug.
+ * <p>
+ * The catalog is shared by all the callers and loaded on first access. It is refreshed on the first access after
+ * the configured refresh interval, or explicitly with {@link #refresh()}. The catalog can also be discarded with
+ * {@link #invalidate()} so the next access loads it again.
+ */
+public abstract class IndexedCatalog<T> implements Supplier<Map<String, T>> {
+
+   private final Function<T, String> indexFunction;
+   private final long refreshIntervalNanos;
+   private final Ticker ticker;
+
+   private volatile Map<String, T> entries;
+   private volatile long loadedAt;
+
+   protected IndexedCatalog(Function<T, String> indexFunction, long refreshInterval, TimeUnit unit, Ticker ticker) {
+      checkArgument(refreshInterval > 0, "refreshInterval must be greater than 0");
+      this.indexFunction = checkNotNull(indexFunction, "indexFunction cannot be null");
+      this.refreshIntervalNanos = unit.toNanos(refreshInterval);
+      this.ticker = checkNotNull(ticker, "ticker cannot be null");
+   }
+
+   /**
+    * Fetches all the entries of the catalog.
+    */
+   protected abstract Iterable<T> fetch();
+
+   /**
+    * Returns the catalog indexed by key, loading or refreshing it if needed.
+    */
+   @Override
+   public Map<String, T> get() {
+      Map<String, T> current = entries;
+      if (current == null || ticker.read() - loadedAt >= refreshIntervalNanos) {
+         synchronized (this) {
+            // Double-checked so concurrent callers trigger a single load
+            current = entries;
+            if (current == null || ticker.read() - loadedAt >= refreshIntervalNanos) {
+               current = load();
+            }
+         }
+      }
+      return current;
+   }
+
+   /**
+    * Returns the entry with the given key, or null if it is not in the catalog.
+    */
+   @Nullable
+   public T get(String key) {
+      return get().get(checkNotNull(key, "key cannot be null"));
+   }
+
+   /**
+    * Returns all the entries in the catalog.
+    */
+   public Collection<T> values() {
+      return get().values();
+   }
+
+   /**
+    * Loads the catalog again, regardless of its age.
+    */
+   public synchronized void refresh() {
+      load();
+   }
+
+   /**
+    * Discards the loaded catalog, so it is loaded again on the next access.
+    */
+   public synchronized void invalidate() {
+      entries = null;
+   }
+
+   /**
+    * Replaces the loaded catalog with the given entries.
+    */
+   protected synchronized void seed(Iterable<T> values) {
+      entries = index(values);
+      loadedAt = ticker.read();
+   }
+
+   /**
+    * Adds or replaces an entry in the loaded catalog. Does nothing if the catalog has not been loaded yet.
+    */
+   protected synchronized void put(T value) {
+      if (entries != null) {
+         Map<String, T> updated = Maps.newLinkedHashMap(entries);
+         updated.put(indexFunction.apply(value), value);
+         entries = ImmutableMap.copyOf(updated);
+      }
+   }
+
+   /**
+    * Removes the entries that match the given predicate from the loaded catalog, if any.
+    */
+   protected synchronized void remove(Predicate<? super T> predicate) {
+      if (entries != null) {
+         entries = ImmutableMap.copyOf(Maps.filterValues(entries, Predicates.not(predicate)));
+      }
+   }
+
+   private Map<String, T> load() {
+      seed(fetch());
+      return entries;
+   }
+
+   private Map<String, T> index(Iterable<T> values) {
+      // Keep the order returned by the API, and the last entry if a key is repeated
+      Map<String, T> index = Maps.newLinkedHashMap();
+      for (T value : values) {
+         index.put(indexFunction.apply(value), value);
+      }
+      return ImmutableMap.copyOf(index);
+   }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.packet.config.PacketProperties.OPERATING_SYSTEM_CATALOG_REFRESH_INTERVAL;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.packet.PacketApi;
+import org.jclouds.packet.domain.OperatingSystem;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Ticker;
+
+/**
+ * The catalog of operating systems, indexed by slug.
+ */
+@Singleton
+public class OperatingSystemCatalog extends IndexedCatalog<OperatingSystem> {
+
+   private static final Function<OperatingSystem, String> SLUG = new Function<OperatingSystem, String>() {
+      @Override
+      public String apply(OperatingSystem input) {
+         return input.slug();
+      }
+   };
+
+   private final PacketApi api;
+   private final CatalogSnapshot snapshot;
+
+   @Inject
+   OperatingSystemCatalog(PacketApi api, @Named(OPERATING_SYSTEM_CATALOG_REFRESH_INTERVAL) long refreshInterval,
+                          CatalogSnapshot snapshot) {
+      this(api, refreshInterval, Ticker.systemTicker(), snapshot);
+   }
+
+   @VisibleForTesting
+   OperatingSystemCatalog(PacketApi api, long refreshInterval, Ticker ticker) {
+      this(api, refreshInterval, ticker, null);
+   }
+
+   @VisibleForTesting
+   OperatingSystemCatalog(PacketApi api, long refreshInterval, Ticker ticker, @Nullable CatalogSnapshot snapshot) {
+      super(SLUG, refreshInterval, TimeUnit.MILLISECONDS, ticker);
+      this.api = checkNotNull(api, "api cannot be null");
+      this.snapshot = snapshot;
+   }
+
+   @Override
+   protected Iterable<OperatingSystem> fetch() {
+      List<OperatingSystem> seed = snapshot == null ? null : snapshot.operatingSystems();
+      return seed != null ? seed : api.operatingSystemApi().list();
+   }
+}
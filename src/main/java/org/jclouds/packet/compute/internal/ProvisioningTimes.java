@@ -0,0 +1,431 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.jclouds.packet.config.PacketProperties.DEVICE_STATE_POLLER_MAX_PERIOD;
+import static org.jclouds.packet.config.PacketProperties.DEVICE_STATE_POLLER_PERIOD;
+import static org.jclouds.packet.config.PacketProperties.PROVISIONING_TIMES_FILE;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.json.Json;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import com.google.common.primitives.Longs;
+import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Learns how long devices take to be provisioned for each plan, facility and operating system, and builds the
+ * polling schedules of the devices being provisioned from it.
+ * <p>
+ * The most recent {@link #MAX_SAMPLES} durations are kept for each combination, so percentiles are exact and follow
+ * changes in the provisioning times. They can optionally be persisted to
+ * {@link org.jclouds.packet.config.PacketProperties#PROVISIONING_TIMES_FILE}, so they survive the context. The file
+ * is written in the background, and the completions recorded while a write is pending share it.
+ * <p>
+ * A device with a known expected duration is checked rarely at first, and more and more often as it approaches
+ * the expected finish: each delay is half of the expected remaining time, bounded by the poller period and
+ * {@link org.jclouds.packet.config.PacketProperties#DEVICE_STATE_POLLER_MAX_PERIOD}. Once the expected finish has
+ * passed, or while there is no data for the plan and facility, the device is checked on every tick. Delays are
+ * randomized, so devices created together are not checked in lockstep.
+ */
+@Singleton
+public class ProvisioningTimes {
+
+   @VisibleForTesting
+   static final int MAX_SAMPLES = 32;
+   @VisibleForTesting
+   static final double JITTER = 0.2;
+
+   private static final Joiner KEY = Joiner.on('@');
+   private static final Type SAMPLES_TYPE = new TypeToken<Map<String, List<Long>>>() {
+      private static final long serialVersionUID = 1L;
+   }.getType();
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final long minPeriod;
+   private final long maxPeriod;
+   private final Ticker ticker;
+   private final Random random;
+   private final Json json;
+   private final File file;
+   private final Executor executor;
+   private final AtomicBoolean savePending = new AtomicBoolean();
+   private volatile boolean loaded;
+   private final ConcurrentMap<String, Deque<Long>> samples = Maps.newConcurrentMap();
+   private final ConcurrentMap<String, PollSchedule> inFlight = Maps.newConcurrentMap();
+
+   @Inject
+   ProvisioningTimes(@Named(DEVICE_STATE_POLLER_PERIOD) long minPeriod,
+                     @Named(DEVICE_STATE_POLLER_MAX_PERIOD) long maxPeriod, Json json,
+                     @Named(PROVISIONING_TIMES_FILE) String file,
+                     @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      this(minPeriod, maxPeriod, Ticker.systemTicker(), new Random(), json, isNullOrEmpty(file) ? null : new File(file),
+            userExecutor);
+   }
+
+   @VisibleForTesting
+   ProvisioningTimes(long minPeriod, long maxPeriod, Ticker ticker, Random random) {
+      this(minPeriod, maxPeriod, ticker, random, null, null, MoreExecutors.sameThreadExecutor());
+   }
+
+   @VisibleForTesting
+   ProvisioningTimes(long minPeriod, long maxPeriod, Ticker ticker, Random random, @Nullable Json json,
+                     @Nullable File file, Executor executor) {
+      checkArgument(minPeriod > 0, "minPeriod must be greater than 0");
+      checkArgument(maxPeriod >= minPeriod, "maxPeriod must be greater than or equal to minPeriod");
+      checkArgument(file == null || json != null, "json is required to persist the provisioning times");
+      this.minPeriod = minPeriod;
+      this.maxPeriod = maxPeriod;
+      this.ticker = checkNotNull(ticker, "ticker cannot be null");
+      this.random = checkNotNull(random, "random cannot be null");
+      this.json = json;
+      this.file = file;
+      this.executor = checkNotNull(executor, "executor cannot be null");
+   }
+
+   /**
+    * Starts tracking a device that has just been created, and returns its polling schedule.
+    */
+   public PollSchedule start(String deviceId, String plan, String facility, String operatingSystem) {
+      PollSchedule schedule = new PollSchedule(checkNotNull(deviceId, "deviceId"), plan, facility, operatingSystem);
+      inFlight.put(deviceId, schedule);
+      return schedule;
+   }
+
+   /**
+    * Records the provisioning time of a device that became active.
+    */
+   public void completed(PollSchedule schedule) {
+      if (inFlight.remove(schedule.deviceId, schedule)) {
+         record(key(schedule.plan, schedule.facility, schedule.operatingSystem), schedule.elapsedMillis());
+         scheduleSave();
+      }
+   }
+
+   /**
+    * Stops tracking a device that did not become active.
+    */
+   public void abandoned(PollSchedule schedule) {
+      inFlight.remove(schedule.deviceId, schedule);
+   }
+
+   /**
+    * Returns the recorded provisioning times, sorted, for the given plan, facility and operating system. A
+    * <code>null</code> operating system matches all of them.
+    */
+   public long[] durations(String plan, String facility, @Nullable String operatingSystem) {
+      if (operatingSystem != null) {
+         return sorted(samples().get(key(plan, facility, operatingSystem)));
+      }
+      String prefix = KEY.join(checkNotNull(plan, "plan"), checkNotNull(facility, "facility"), "");
+      long[] all = new long[0];
+      for (Map.Entry<String, Deque<Long>> entry : samples().entrySet()) {
+         if (entry.getKey().startsWith(prefix)) {
+            all = Longs.concat(all, sorted(entry.getValue()));
+         }
+      }
+      Arrays.sort(all);
+      return all;
+   }
+
+   /**
+    * Returns the recorded provisioning times of each plan, facility and operating system, keyed by
+    * <code>plan@facility@operatingSystem</code>.
+    */
+   public Map<String, long[]> durations() {
+      ImmutableMap.Builder<String, long[]> durations = ImmutableMap.builder();
+      for (Map.Entry<String, Deque<Long>> entry : samples().entrySet()) {
+         durations.put(entry.getKey(), sorted(entry.getValue()));
+      }
+      return durations.build();
+   }
+
+   /**
+    * Returns the estimated time until a device being provisioned becomes active: the median of the recorded times
+    * longer than the time the device has been provisioning, minus that time. Returns 0 if the device is taking
+    * longer than all the recorded times, and absent if the device is not being tracked or there are no recorded
+    * times.
+    */
+   public Optional<Long> remainingMillis(String deviceId) {
+      PollSchedule schedule = inFlight.get(deviceId);
+      if (schedule == null) {
+         return Optional.absent();
+      }
+      long[] durations = durationsOrAnyOperatingSystem(schedule.plan, schedule.facility, schedule.operatingSystem);
+      if (durations.length == 0) {
+         return Optional.absent();
+      }
+      long elapsed = schedule.elapsedMillis();
+      int longer = 0;
+      while (longer < durations.length && durations[longer] <= elapsed) {
+         longer++;
+      }
+      if (longer == durations.length) {
+         return Optional.of(0L);
+      }
+      return Optional.of(percentile(Arrays.copyOfRange(durations, longer, durations.length), 50) - elapsed);
+   }
+
+   /**
+    * Returns the expected provisioning time, using the times of all the operating systems of the plan and facility
+    * if there are none for the given one.
+    */
+   private Optional<Long> expected(String plan, String facility, String operatingSystem) {
+      long[] durations = durationsOrAnyOperatingSystem(plan, facility, operatingSystem);
+      return durations.length == 0 ? Optional.<Long> absent() : Optional.of(percentile(durations, 50));
+   }
+
+   private long[] durationsOrAnyOperatingSystem(String plan, String facility, String operatingSystem) {
+      long[] durations = durations(plan, facility, operatingSystem);
+      return durations.length > 0 ? durations : durations(plan, facility, null);
+   }
+
+   /**
+    * Returns the given percentile of the sorted durations, with the nearest-rank method.
+    */
+   public static long percentile(long[] sorted, double percentile) {
+      checkArgument(sorted.length > 0, "there are no durations");
+      checkArgument(percentile > 0 && percentile <= 100, "percentile must be in (0, 100]");
+      int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+      return sorted[Math.max(0, rank - 1)];
+   }
+
+   @VisibleForTesting
+   void record(String key, long durationMillis) {
+      add(samples(), key, durationMillis);
+   }
+
+   /**
+    * Returns the samples, reading the persisted ones on first use. They are not read in the constructor, where the
+    * injected logger is not available yet to report a file that cannot be read.
+    */
+   private ConcurrentMap<String, Deque<Long>> samples() {
+      if (!loaded) {
+         synchronized (samples) {
+            if (!loaded) {
+               load();
+               loaded = true;
+            }
+         }
+      }
+      return samples;
+   }
+
+   private static void add(ConcurrentMap<String, Deque<Long>> samples, String key, long durationMillis) {
+      Deque<Long> durations = samples.get(key);
+      if (durations == null) {
+         Deque<Long> created = new ArrayDeque<Long>(MAX_SAMPLES);
+         durations = samples.putIfAbsent(key, created);
+         if (durations == null) {
+            durations = created;
+         }
+      }
+      synchronized (durations) {
+         if (durations.size() == MAX_SAMPLES) {
+            durations.removeFirst();
+         }
+         durations.addLast(durationMillis);
+      }
+   }
+
+   private void load() {
+      if (file == null || !file.isFile()) {
+         return;
+      }
+      try {
+         Map<String, List<Long>> persisted = json.fromJson(Files.toString(file, Charsets.UTF_8), SAMPLES_TYPE);
+         if (persisted == null) {
+            return;
+         }
+         for (Map.Entry<String, List<Long>> entry : persisted.entrySet()) {
+            for (Long duration : entry.getValue()) {
+               add(samples, entry.getKey(), duration);
+            }
+         }
+      } catch (Exception ex) {
+         logger.warn(ex, "<< could not read the provisioning times from %s", file);
+      }
+   }
+
+   private void scheduleSave() {
+      if (file == null || !savePending.compareAndSet(false, true)) {
+         return;
+      }
+      try {
+         executor.execute(new Runnable() {
+            @Override
+            public void run() {
+               // Cleared before writing, so the samples recorded during the write are saved again
+               savePending.set(false);
+               save();
+            }
+         });
+      } catch (RejectedExecutionException ex) {
+         savePending.set(false);
+         logger.warn(ex, "<< could not write the provisioning times to %s", file);
+      }
+   }
+
+   private synchronized void save() {
+      if (file == null) {
+         return;
+      }
+      Map<String, List<Long>> persisted = Maps.newHashMap();
+      for (Map.Entry<String, long[]> entry : durations().entrySet()) {
+         persisted.put(entry.getKey(), Longs.asList(entry.getValue()));
+      }
+      try {
+         File directory = file.getAbsoluteFile().getParentFile();
+         if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("could not create directory " + directory);
+         }
+         File tmp = File.createTempFile(file.getName(), ".tmp", directory);
+         try {
+            Files.write(json.toJson(persisted), tmp, Charsets.UTF_8);
+            java.nio.file.Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                  StandardCopyOption.ATOMIC_MOVE);
+         } finally {
+            tmp.delete();
+         }
+      } catch (IOException ex) {
+         logger.warn(ex, "<< could not write the provisioning times to %s", file);
+      }
+   }
+
+   private static long[] sorted(Deque<Long> durations) {
+      if (durations == null) {
+         return new long[0];
+      }
+      long[] sorted;
+      synchronized (durations) {
+         sorted = Longs.toArray(durations);
+      }
+      Arrays.sort(sorted);
+      return sorted;
+   }
+
+   private static String key(String plan, String facility, String operatingSystem) {
+      return KEY.join(checkNotNull(plan, "plan"), checkNotNull(facility, "facility"),
+            checkNotNull(operatingSystem, "operatingSystem"));
+   }
+
+   /**
+    * Returns the delay until the next check of a device, without jitter.
+    */
+   @VisibleForTesting
+   static long delay(long elapsedMillis, Optional<Long> expectedMillis, long minPeriod, long maxPeriod) {
+      if (!expectedMillis.isPresent()) {
+         return minPeriod;
+      }
+      long remaining = expectedMillis.get() - elapsedMillis;
+      return Math.max(minPeriod, Math.min(maxPeriod, remaining / 2));
+   }
+
+   /**
+    * The polling schedule of a single device.
+    */
+   public final class PollSchedule {
+      private final String deviceId;
+      private final String plan;
+      private final String facility;
+      private final String operatingSystem;
+      private final Optional<Long> expectedMillis;
+      private final long startNanos;
+      private volatile long dueNanos;
+
+      private PollSchedule(String deviceId, String plan, String facility, String operatingSystem) {
+         this.deviceId = deviceId;
+         this.plan = checkNotNull(plan, "plan");
+         this.facility = checkNotNull(facility, "facility");
+         this.operatingSystem = checkNotNull(operatingSystem, "operatingSystem");
+         this.expectedMillis = expected(plan, facility, operatingSystem);
+         this.startNanos = ticker.read();
+         checked();
+      }
+
+      /**
+       * Whether the device should be checked on the current tick.
+       */
+      public boolean isDue() {
+         return ticker.read() - dueNanos >= 0;
+      }
+
+      /**
+       * Schedules the next check of a device that was not in the expected state yet.
+       */
+      public void checked() {
+         long delay = delay(elapsedMillis(), expectedMillis, minPeriod, maxPeriod);
+         if (delay <= minPeriod) {
+            // Check on every tick of the poller
+            dueNanos = ticker.read();
+            return;
+         }
+         delay = (long) (delay * (1 + JITTER * (2 * random.nextDouble() - 1)));
+         dueNanos = ticker.read() + TimeUnit.MILLISECONDS.toNanos(delay);
+      }
+
+      /**
+       * Returns the time elapsed since the device was created.
+       */
+      public long elapsedMillis() {
+         return TimeUnit.NANOSECONDS.toMillis(ticker.read() - startNanos);
+      }
+
+      public Optional<Long> expectedMillis() {
+         return expectedMillis;
+      }
+   }
+}
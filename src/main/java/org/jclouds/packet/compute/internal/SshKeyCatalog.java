@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.packet.config.PacketProperties.SSH_KEY_CACHE_TTL;
+
+import java.security.spec.RSAPublicKeySpec;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.packet.PacketApi;
+import org.jclouds.packet.domain.SshKey;
+import org.jclouds.ssh.SshKeys;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.base.Ticker;
+
+/**
+ * Local index of the SSH keys in the account, keyed by the fingerprint of the public key, so looking up the key
+ * for a given public key does not need any API call.
+ */
+@Singleton
+public class SshKeyCatalog extends IndexedCatalog<SshKey> {
+
+   private static final Function<SshKey, String> FINGERPRINT = new Function<SshKey, String>() {
+      @Override
+      public String apply(SshKey input) {
+         try {
+            return fingerprint(input.key());
+         } catch (RuntimeException ex) {
+            // Keys that cannot be parsed (such as non RSA keys) are indexed with the fingerprint given by the API
+            return input.fingerprint();
+         }
+      }
+   };
+
+   private final PacketApi api;
+
+   @Inject
+   SshKeyCatalog(PacketApi api, @Named(SSH_KEY_CACHE_TTL) long ttl) {
+      this(api, ttl, Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   SshKeyCatalog(PacketApi api, long ttl, Ticker ticker) {
+      super(FINGERPRINT, ttl, TimeUnit.MILLISECONDS, ticker);
+      this.api = checkNotNull(api, "api cannot be null");
+   }
+
+   @Override
+   protected Iterable<SshKey> fetch() {
+      return api.sshKeyApi().list();
+   }
+
+   /**
+    * Returns the key registered for the given OpenSSH public key, or null if there is none.
+    */
+   public SshKey getByPublicKey(String publicKey) {
+      return get(fingerprint(publicKey));
+   }
+
+   /**
+    * Adds a key that has just been created.
+    */
+   public void created(SshKey key) {
+      put(checkNotNull(key, "key cannot be null"));
+   }
+
+   /**
+    * Removes a key that has just been deleted.
+    */
+   public void deleted(final String id) {
+      checkNotNull(id, "id cannot be null");
+      remove(new Predicate<SshKey>() {
+         @Override
+         public boolean apply(SshKey input) {
+            return id.equals(input.id());
+         }
+      });
+   }
+
+   /**
+    * Computes the fingerprint of the given OpenSSH RSA public key.
+    */
+   public static String fingerprint(String publicKey) {
+      RSAPublicKeySpec spec = SshKeys.publicKeySpecFromOpenSSH(publicKey);
+      return SshKeys.fingerprint(spec.getPublicExponent(), spec.getModulus());
+   }
+}
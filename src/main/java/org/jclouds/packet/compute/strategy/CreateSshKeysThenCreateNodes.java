@@ -21,6 +21,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Throwables.propagate;
 import static com.google.common.collect.Iterables.get;
 import static com.google.common.collect.Iterables.size;
+import static org.jclouds.packet.config.PacketProperties.CAPACITY_CHECK_ENABLED;
+import static org.jclouds.packet.config.PacketProperties.CAPACITY_CHECK_FALLBACK_FACILITIES;
+import static org.jclouds.packet.config.PacketProperties.SSH_KEY_CLEANUP_PARALLELISM;
 
 import java.net.URI;
 import java.security.KeyFactory;
@@ -32,6 +35,10 @@ import java.security.spec.RSAPublicKeySpec;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -39,25 +46,43 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.jclouds.Constants;
+import org.jclouds.collect.Memoized;
+import org.jclouds.compute.ComputeServiceAdapter.NodeAndInitialCredentials;
 import org.jclouds.compute.config.CustomizationResponse;
 import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
 import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.domain.internal.TemplateImpl;
 import org.jclouds.compute.functions.GroupNamingConvention;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.strategy.CreateNodeWithGroupEncodedIntoName;
 import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap;
 import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.compute.strategy.PrioritizeCredentialsFromTemplate;
 import org.jclouds.compute.strategy.impl.CreateNodesWithGroupEncodedIntoNameThenAddToSet;
+import org.jclouds.domain.Credentials;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LoginCredentials;
 import org.jclouds.logging.Logger;
 import org.jclouds.packet.PacketApi;
+import org.jclouds.packet.compute.PacketComputeServiceAdapter;
+import org.jclouds.packet.compute.internal.CapacityCache;
+import org.jclouds.packet.compute.internal.SshKeyCatalog;
 import org.jclouds.packet.compute.options.PacketTemplateOptions;
+import org.jclouds.packet.compute.utils.ConcurrentTasks;
 import org.jclouds.packet.compute.utils.URIs;
+import org.jclouds.packet.domain.Device;
 import org.jclouds.packet.domain.SshKey;
+import org.jclouds.packet.metrics.PacketMetrics;
+import org.jclouds.rest.InsufficientResourcesException;
 import org.jclouds.ssh.SshKeyPairGenerator;
 import org.jclouds.ssh.SshKeys;
 
+import com.google.common.base.Function;
 import com.google.common.base.Splitter;
+import com.google.common.base.Stopwatch;
 import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.FutureCallback;
@@ -74,6 +99,20 @@ public class CreateSshKeysThenCreateNodes extends CreateNodesWithGroupEncodedInt
 
     private final PacketApi api;
     private final SshKeyPairGenerator keyGenerator;
+    private final PacketComputeServiceAdapter adapter;
+    private final Function<Device, NodeMetadata> nodeMetadataAdapter;
+    private final Map<String, Credentials> credentialStore;
+    private final PrioritizeCredentialsFromTemplate prioritizeCredentialsFromTemplate;
+    private final int sshKeyCleanupParallelism;
+    private final SshKeyCatalog sshKeys;
+    private final CapacityCache capacity;
+    private final boolean capacityCheckEnabled;
+    private final List<String> fallbackFacilities;
+    private final Supplier<Set<? extends Location>> locations;
+    private final PacketMetrics metrics;
+
+    // Set while the nodes of a group are being submitted, so their creation waits for the SSH keys
+    private final ThreadLocal<ListenableFuture<Void>> sshKeysRegistered = new ThreadLocal<ListenableFuture<Void>>();
 
     @Inject
     protected CreateSshKeysThenCreateNodes(
@@ -82,42 +121,91 @@ public class CreateSshKeysThenCreateNodes extends CreateNodesWithGroupEncodedInt
             GroupNamingConvention.Factory namingConvention,
             @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
             CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory,
-            PacketApi api, SshKeyPairGenerator keyGenerator
+            PacketApi api, SshKeyPairGenerator keyGenerator,
+            PacketComputeServiceAdapter adapter, Function<Device, NodeMetadata> nodeMetadataAdapter,
+            Map<String, Credentials> credentialStore,
+            PrioritizeCredentialsFromTemplate prioritizeCredentialsFromTemplate,
+            @Named(SSH_KEY_CLEANUP_PARALLELISM) int sshKeyCleanupParallelism,
+            SshKeyCatalog sshKeys,
+            CapacityCache capacity,
+            @Named(CAPACITY_CHECK_ENABLED) boolean capacityCheckEnabled,
+            @Named(CAPACITY_CHECK_FALLBACK_FACILITIES) String fallbackFacilities,
+            @Memoized Supplier<Set<? extends Location>> locations,
+            PacketMetrics metrics
     ) {
         super(addNodeWithGroupStrategy, listNodesStrategy, namingConvention, userExecutor,
                 customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory);
         this.api = checkNotNull(api, "api cannot be null");
         this.keyGenerator = checkNotNull(keyGenerator, "keyGenerator cannot be null");
+        this.adapter = checkNotNull(adapter, "adapter cannot be null");
+        this.nodeMetadataAdapter = checkNotNull(nodeMetadataAdapter, "nodeMetadataAdapter cannot be null");
+        this.credentialStore = checkNotNull(credentialStore, "credentialStore cannot be null");
+        this.prioritizeCredentialsFromTemplate = checkNotNull(prioritizeCredentialsFromTemplate,
+                "prioritizeCredentialsFromTemplate cannot be null");
+        this.sshKeyCleanupParallelism = sshKeyCleanupParallelism;
+        this.sshKeys = checkNotNull(sshKeys, "sshKeys cannot be null");
+        this.capacity = checkNotNull(capacity, "capacity cannot be null");
+        this.capacityCheckEnabled = capacityCheckEnabled;
+        this.fallbackFacilities = Splitter.on(',').trimResults().omitEmptyStrings().splitToList(fallbackFacilities);
+        this.locations = checkNotNull(locations, "locations cannot be null");
+        this.metrics = checkNotNull(metrics, "metrics cannot be null");
         checkNotNull(userExecutor, "userExecutor cannot be null");
     }
 
     @Override
-    public Map<?, ListenableFuture<Void>> execute(String group, int count, Template template,
+    public Map<?, ListenableFuture<Void>> execute(final String group, int count, Template template,
                                                   Set<NodeMetadata> goodNodes, Map<NodeMetadata, Exception> badNodes,
                                                   Multimap<NodeMetadata, CustomizationResponse> customizationResponses) {
 
-        PacketTemplateOptions options = template.getOptions().as(PacketTemplateOptions.class);
-        Set<String> generatedSshKeyIds = Sets.newHashSet();
-
-        // If no key has been configured and the auto-create option is set, then generate a key pair
-        if (Strings.isNullOrEmpty(options.getPublicKey())) {
-            generateKeyPairAndAddKeyToSet(options, generatedSshKeyIds, group);
+        // Fail, or move to another facility, before any SSH key or device is created
+        if (capacityCheckEnabled) {
+            template = withCapacity(template);
         }
 
+        final PacketTemplateOptions options = template.getOptions().as(PacketTemplateOptions.class);
+        final Set<String> generatedSshKeyIds = Sets.newConcurrentHashSet();
+
         // If there is a script to run in the node, make sure a private key has
-        // been configured so jclouds will be able to access the node
-        if (options.getRunScript() != null && Strings.isNullOrEmpty(options.getLoginPrivateKey())) {
+        // been configured so jclouds will be able to access the node. A private key is configured
+        // when the key pair is auto-generated.
+        if (options.getRunScript() != null && !Strings.isNullOrEmpty(options.getPublicKey())
+                && Strings.isNullOrEmpty(options.getLoginPrivateKey())) {
             logger.warn(">> A runScript has been configured but no SSH key has been provided."
                     + " Authentication will delegate to the ssh-agent");
         }
 
-        // If there is a key configured, then make sure there is a key pair for it
-        if (!Strings.isNullOrEmpty(options.getPublicKey())) {
-            createKeyPairForPublicKeyInOptionsAndAddToSet(options, generatedSshKeyIds);
-        }
+        // The SSH keys are registered while the node names are being computed, and only the device creation
+        // requests wait for them
+        ListenableFuture<Void> keysRegistered = userExecutor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                Stopwatch watch = Stopwatch.createStarted();
+                boolean failed = true;
+                try {
+                    if (Strings.isNullOrEmpty(options.getPublicKey())) {
+                        // If no key has been configured and the auto-create option is set, then generate a key pair
+                        generateKeyPairAndAddKeyToSet(options, generatedSshKeyIds, group);
+                    } else {
+                        // If there is a key configured, then make sure there is a key pair for it
+                        createKeyPairForPublicKeyInOptions(options);
+                    }
+                    failed = false;
+                } finally {
+                    metrics.recordDuration(PacketMetrics.GROUP_SSH_KEY_REGISTRATION, watch.elapsed(TimeUnit.NANOSECONDS),
+                            failed);
+                }
+                logger.debug(">> SSH keys registered in %sms", watch.elapsed(TimeUnit.MILLISECONDS));
+                return null;
+            }
+        });
 
-        Map<?, ListenableFuture<Void>> responses = super.execute(group, count, template, goodNodes, badNodes,
-                customizationResponses);
+        Map<?, ListenableFuture<Void>> responses;
+        sshKeysRegistered.set(keysRegistered);
+        try {
+            responses = super.execute(group, count, template, goodNodes, badNodes, customizationResponses);
+        } finally {
+            sshKeysRegistered.remove();
+        }
 
         // Key pairs in Packet are only required to create the devices. They aren't used anymore so it is better
         // to delete the auto-generated key pairs at this point where we know exactly which ones have been
@@ -127,8 +215,80 @@ public class CreateSshKeysThenCreateNodes extends CreateNodesWithGroupEncodedInt
         return responses;
     }
 
-    private void createKeyPairForPublicKeyInOptionsAndAddToSet(PacketTemplateOptions options,
-                                                               Set<String> generatedSshKeyIds) {
+    /**
+     * Creates the device in a user thread once the SSH keys have been registered, but does not keep the thread
+     * while the device is being provisioned: the node customization is chained to the future that completes when
+     * the device is ACTIVE.
+     */
+    @Override
+    protected ListenableFuture<AtomicReference<NodeMetadata>> createNodeInGroupWithNameAndTemplate(final String group,
+            final String name, final Template template) {
+        ListenableFuture<Void> keysRegistered = sshKeysRegistered.get();
+        if (keysRegistered == null) {
+            keysRegistered = Futures.immediateFuture(null);
+        }
+        ListenableFuture<ListenableFuture<NodeAndInitialCredentials<Device>>> created = Futures.transform(keysRegistered,
+                new Function<Void, ListenableFuture<NodeAndInitialCredentials<Device>>>() {
+                    @Override
+                    public ListenableFuture<NodeAndInitialCredentials<Device>> apply(Void input) {
+                        return adapter.createNodeWithGroupEncodedIntoNameAsync(group, name, template);
+                    }
+                }, userExecutor);
+
+        return Futures.transform(Futures.dereference(created),
+                new Function<NodeAndInitialCredentials<Device>, AtomicReference<NodeMetadata>>() {
+                    @Override
+                    public AtomicReference<NodeMetadata> apply(NodeAndInitialCredentials<Device> input) {
+                        return new AtomicReference<NodeMetadata>(toNodeMetadata(input, template));
+                    }
+                }, userExecutor);
+    }
+
+    /**
+     * Returns the template if there is capacity for its plan in its facility, or a copy of it in the first fallback
+     * facility known to have capacity for the plan.
+     */
+    private Template withCapacity(Template template) {
+        String plan = template.getHardware().getId();
+        String facility = template.getLocation().getId();
+        if (capacity.isAvailable(facility, plan)) {
+            return template;
+        }
+        for (String fallback : fallbackFacilities) {
+            if (fallback.equals(facility) || !capacity.get(fallback, plan).isPresent()
+                    || !capacity.isAvailable(fallback, plan)) {
+                continue;
+            }
+            for (Location location : locations.get()) {
+                if (location.getId().equals(fallback)) {
+                    logger.info(">> no capacity for plan %s in facility %s, creating the nodes in %s", plan, facility,
+                            fallback);
+                    return new TemplateImpl(template.getImage(), template.getHardware(), location,
+                            template.getOptions());
+                }
+            }
+        }
+        throw new InsufficientResourcesException(String.format("There is no capacity for plan %s in facility %s",
+                plan, facility));
+    }
+
+    /**
+     * Converts the created device the same way {@link org.jclouds.compute.strategy.impl.AdaptingComputeServiceStrategies}
+     * does: the login overrides in the template take precedence over the initial credentials of the device, and the
+     * resulting credentials are stored in the credential store.
+     */
+    private NodeMetadata toNodeMetadata(NodeAndInitialCredentials<Device> from, Template template) {
+        NodeMetadata node = nodeMetadataAdapter.apply(from.getNode());
+        checkNotNull(node, "nodeMetadataAdapter returned null for device %s", from.getNodeId());
+        LoginCredentials credentials = prioritizeCredentialsFromTemplate.apply(template, from.getCredentials());
+        if (credentials == null) {
+            return node;
+        }
+        credentialStore.put("node#" + node.getId(), credentials);
+        return NodeMetadataBuilder.fromNodeMetadata(node).credentials(credentials).build();
+    }
+
+    private void createKeyPairForPublicKeyInOptions(PacketTemplateOptions options) {
         logger.debug(">> checking if the key pair already exists...");
 
         PublicKey userKey;
@@ -148,19 +308,22 @@ public class CreateSshKeysThenCreateNodes extends CreateNodesWithGroupEncodedInt
         } catch (NoSuchAlgorithmException ex) {
             throw propagate(ex);
         }
+      // The key pair is looked up in the local index of keys, by fingerprint. Key pairs created for a public key
+      // are not deleted, so the following group creations with the same key do not need any API call.
       String label = computeFingerprint(userKey);
-      SshKey key = api.sshKeyApi().get(label);
+      SshKey key = sshKeys.get(label);
 
       if (key == null) {
          logger.debug(">> key pair not found. creating a new one...");
 
          URI newKeyUri = api.sshKeyApi().create(label, options.getPublicKey());
-
-         generatedSshKeyIds.add(URIs.toId(newKeyUri));
+         SshKey newKey = api.sshKeyApi().get(URIs.toId(newKeyUri));
+         if (newKey != null) {
+            sshKeys.created(newKey);
+         }
          logger.debug(">> key pair created! %s", newKeyUri);
       } else {
          logger.debug(">> key pair found! %s", key);
-         generatedSshKeyIds.add(key.id());
       }
     }
 
@@ -172,8 +335,7 @@ public class CreateSshKeysThenCreateNodes extends CreateNodesWithGroupEncodedInt
         URI defaultKeyUri = api.sshKeyApi().create(prefix + "-" + System.getProperty("user.name"), defaultKeys.get("public"));
         String sshKeyId = URIs.toId(defaultKeyUri);
         generatedSshKeyIds.add(sshKeyId);
-        SshKey sshKey = api.sshKeyApi().get(sshKeyId);
-        logger.debug(">> keypair created! %s", sshKey);
+        logger.debug(">> keypair created! %s", defaultKeyUri);
 
         // If a private key has not been explicitly set, configure the auto-generated one
         if (Strings.isNullOrEmpty(options.getLoginPrivateKey())) {
@@ -202,13 +364,25 @@ public class CreateSshKeysThenCreateNodes extends CreateNodesWithGroupEncodedInt
 
             private void cleanupAutoGeneratedKeyPairs(Set<String> generatedSshKeyIds) {
                 logger.debug(">> cleaning up auto-generated key pairs...");
-                for (String sshKeyId : generatedSshKeyIds) {
-                    try {
-                        api.sshKeyApi().delete(sshKeyId);
-                    } catch (Exception ex) {
-                        logger.warn(">> could not delete key pair %s: %s", sshKeyId, ex.getMessage());
+                Stopwatch watch = Stopwatch.createStarted();
+                final AtomicBoolean failed = new AtomicBoolean();
+                ConcurrentTasks.forEach(generatedSshKeyIds, new Function<String, Void>() {
+                    @Override
+                    public Void apply(String sshKeyId) {
+                        try {
+                            api.sshKeyApi().delete(sshKeyId);
+                            sshKeys.deleted(sshKeyId);
+                        } catch (Exception ex) {
+                            failed.set(true);
+                            logger.warn(">> could not delete key pair %s: %s", sshKeyId, ex.getMessage());
+                        }
+                        return null;
                     }
-                }
+                }, sshKeyCleanupParallelism, userExecutor);
+                metrics.recordDuration(PacketMetrics.GROUP_SSH_KEY_CLEANUP, watch.elapsed(TimeUnit.NANOSECONDS),
+                        failed.get());
+                logger.debug(">> %s key pairs cleaned up in %sms", generatedSshKeyIds.size(),
+                        watch.elapsed(TimeUnit.MILLISECONDS));
             }
 
         }, userExecutor);
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.utils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.successfulAsList;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+public final class ConcurrentTasks {
+
+   /**
+    * Applies the given task to all the inputs, with at most the given number of concurrent executions, and
+    * blocks until all of them complete. The calling thread takes part in the execution, so progress is made
+    * even if the executor is busy.
+    * <p>
+    * Once a task fails no more inputs are started, but this method still waits for the tasks that are already
+    * running before propagating the first failure. Workers that are still queued in the executor when the
+    * calling thread runs out of inputs are cancelled instead of awaited: when this method is called from a
+    * thread of a bounded executor, they may be waiting for that very thread.
+    */
+   public static <T> void forEach(Iterable<T> inputs, Function<? super T, ?> task, int parallelism,
+                                  ListeningExecutorService executor) {
+      checkArgument(parallelism > 0, "parallelism must be greater than 0");
+      List<T> all = ImmutableList.copyOf(inputs);
+      Queue<T> pending = new ConcurrentLinkedQueue<T>(all);
+
+      List<Worker<T>> workers = Lists.newArrayList();
+      for (int i = 1; i < Math.min(parallelism, all.size()); i++) {
+         Worker<T> worker = new Worker<T>(pending, task);
+         worker.future = executor.submit(worker);
+         workers.add(worker);
+      }
+      List<ListenableFuture<?>> started = Lists.newArrayList();
+      try {
+         new Worker<T>(pending, task).run();
+      } finally {
+         for (Worker<T> worker : workers) {
+            if (worker.claim()) {
+               worker.future.cancel(false);
+            } else {
+               started.add(worker.future);
+            }
+         }
+         // Never return while other workers are still running, even if the calling thread failed
+         awaitAll(started);
+      }
+      try {
+         getUninterruptibly(allAsList(started));
+      } catch (ExecutionException e) {
+         throw propagate(e.getCause());
+      }
+   }
+
+   /**
+    * Takes inputs from the shared queue until it is empty. A worker only runs if it has not been claimed yet, so
+    * the calling thread can tell the workers that started from the ones that never will.
+    */
+   private static final class Worker<T> implements Runnable {
+      private final Queue<T> pending;
+      private final Function<? super T, ?> task;
+      private final AtomicBoolean claimed = new AtomicBoolean();
+      private ListenableFuture<?> future;
+
+      Worker(Queue<T> pending, Function<? super T, ?> task) {
+         this.pending = pending;
+         this.task = task;
+      }
+
+      boolean claim() {
+         return claimed.compareAndSet(false, true);
+      }
+
+      @Override
+      public void run() {
+         if (!claim()) {
+            return;
+         }
+         try {
+            for (T input = pending.poll(); input != null; input = pending.poll()) {
+               task.apply(input);
+            }
+         } catch (RuntimeException e) {
+            pending.clear();
+            throw e;
+         } catch (Error e) {
+            pending.clear();
+            throw e;
+         }
+      }
+   }
+
+   private static void awaitAll(List<ListenableFuture<?>> workers) {
+      try {
+         getUninterruptibly(successfulAsList(workers));
+      } catch (ExecutionException e) {
+         // Not thrown by a successfulAsList future
+         throw propagate(e.getCause());
+      }
+   }
+
+   private ConcurrentTasks() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+}
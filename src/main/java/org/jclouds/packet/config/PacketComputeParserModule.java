@@ -16,9 +16,30 @@
  */
 package org.jclouds.packet.config;
 
+import java.io.IOException;
+import java.util.Set;
+
+import javax.inject.Singleton;
+
 import org.jclouds.json.config.GsonModule;
+import org.jclouds.packet.domain.Facility;
+import org.jclouds.packet.domain.Href;
+import org.jclouds.packet.domain.OperatingSystem;
+import org.jclouds.packet.domain.Plan;
+import org.jclouds.packet.domain.Pricing;
+import org.jclouds.packet.domain.Specs;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 
 public class PacketComputeParserModule extends AbstractModule {
 
@@ -27,4 +48,52 @@ public class PacketComputeParserModule extends AbstractModule {
       bind(GsonModule.DateAdapter.class).to(GsonModule.Iso8601DateAdapter.class);
    }
 
+   @Provides
+   @Singleton
+   public Set<TypeAdapterFactory> typeAdapterFactories() {
+      // Factories registered later take precedence, so the interning factory wraps the streaming adapters. Only the
+      // catalog types are interned: there are few distinct values of them, and interning them also shares their
+      // slugs, codes and hrefs. Strings in general are not, as most of them (ids, passwords, userdata) are unique.
+      return ImmutableSet.<TypeAdapterFactory> of(new PacketTypeAdapterFactory(),
+            new InterningTypeAdapterFactory(ImmutableSet.<Class<?>> of(
+                  Href.class, Facility.class, OperatingSystem.class, Plan.class, Pricing.class,
+                  Specs.class, Specs.CPU.class, Specs.Memory.class, Specs.Drive.class, Specs.NIC.class)));
+   }
+
+   /**
+    * Canonicalizes the decoded values of the given immutable types, so the
+    * facilities, plans and operating systems repeated across thousands of
+    * devices are held in memory only once. The interner is weak, so values
+    * that are no longer referenced can still be collected.
+    */
+   public static final class InterningTypeAdapterFactory implements TypeAdapterFactory {
+
+      private final Set<Class<?>> types;
+      private final Interner<Object> interner = Interners.newWeakInterner();
+
+      public InterningTypeAdapterFactory(Set<Class<?>> types) {
+         this.types = ImmutableSet.copyOf(types);
+      }
+
+      @Override
+      public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+         if (!types.contains(type.getRawType())) {
+            return null;
+         }
+         final TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+         return new TypeAdapter<T>() {
+            @Override
+            public void write(JsonWriter out, T value) throws IOException {
+               delegate.write(out, value);
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public T read(JsonReader in) throws IOException {
+               T value = delegate.read(in);
+               return value == null ? null : (T) interner.intern(value);
+            }
+         };
+      }
+   }
 }
@@ -16,21 +16,27 @@
  */
 package org.jclouds.packet.config;
 
+import org.jclouds.http.HttpCommandExecutorService;
 import org.jclouds.http.HttpErrorHandler;
 import org.jclouds.http.HttpRetryHandler;
 import org.jclouds.http.annotation.ClientError;
 import org.jclouds.http.annotation.Redirection;
 import org.jclouds.http.annotation.ServerError;
-import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
+import org.jclouds.http.okhttp.OkHttpClientSupplier;
 import org.jclouds.location.config.LocationModule;
 import org.jclouds.location.suppliers.ImplicitLocationSupplier;
 import org.jclouds.location.suppliers.implicit.FirstRegion;
 import org.jclouds.packet.PacketApi;
+import org.jclouds.packet.filters.ThrottleRequests;
 import org.jclouds.packet.handlers.PacketErrorHandler;
+import org.jclouds.packet.handlers.PacketRateLimitRetryHandler;
+import org.jclouds.packet.http.ConditionalRequestCache;
+import org.jclouds.packet.metrics.MeterHttpCommands;
 import org.jclouds.rest.ConfiguresHttpApi;
 import org.jclouds.rest.config.HttpApiModule;
 
 import com.google.inject.Scopes;
+import com.google.inject.matcher.Matchers;
 
 @ConfiguresHttpApi
 public class PacketHttpApiModule extends HttpApiModule<PacketApi> {
@@ -39,6 +45,28 @@ public class PacketHttpApiModule extends HttpApiModule<PacketApi> {
    protected void configure() {
       install(new PacketComputeParserModule());
       super.configure();
+      bind(OkHttpClientSupplier.class).to(PacketOkHttpClientSupplier.class);
+      bindMetrics();
+      bindConditionalRequestCache();
+      bindRateLimitHeaders();
+   }
+
+   protected void bindMetrics() {
+      MeterHttpCommands meter = new MeterHttpCommands();
+      requestInjection(meter);
+      bindInterceptor(Matchers.subclassesOf(HttpCommandExecutorService.class), MeterHttpCommands.INVOKE, meter);
+   }
+
+   protected void bindConditionalRequestCache() {
+      ConditionalRequestCache.Interceptor cache = new ConditionalRequestCache.Interceptor();
+      requestInjection(cache);
+      bindInterceptor(Matchers.subclassesOf(HttpCommandExecutorService.class), MeterHttpCommands.INVOKE, cache);
+   }
+
+   protected void bindRateLimitHeaders() {
+      ThrottleRequests.Interceptor throttle = new ThrottleRequests.Interceptor();
+      requestInjection(throttle);
+      bindInterceptor(Matchers.subclassesOf(HttpCommandExecutorService.class), MeterHttpCommands.INVOKE, throttle);
    }
 
    @Override
@@ -50,7 +78,7 @@ public class PacketHttpApiModule extends HttpApiModule<PacketApi> {
 
    @Override
    protected void bindRetryHandlers() {
-      bind(HttpRetryHandler.class).annotatedWith(ClientError.class).to(BackoffLimitedRetryHandler.class);
+      bind(HttpRetryHandler.class).annotatedWith(ClientError.class).to(PacketRateLimitRetryHandler.class);
    }
 
    @Override
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.config;
+
+import static org.jclouds.packet.config.PacketProperties.HTTP_KEEP_ALIVE;
+import static org.jclouds.packet.config.PacketProperties.HTTP_MAX_IDLE_CONNECTIONS;
+import static org.jclouds.packet.config.PacketProperties.HTTP_WARM_UP_CONNECTIONS;
+
+import java.io.IOException;
+import java.net.URI;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.okhttp.OkHttpClientSupplier;
+import org.jclouds.location.Provider;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Supplier;
+import com.squareup.okhttp.Callback;
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+/**
+ * Configures the HTTP client used to talk to the Packet API with a keep-alive
+ * connection pool, and optionally opens some connections in the background
+ * when the context is built.
+ */
+@Singleton
+public class PacketOkHttpClientSupplier implements OkHttpClientSupplier {
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final Supplier<URI> endpoint;
+   private final int maxIdleConnections;
+   private final long keepAliveMillis;
+   private final int warmUpConnections;
+
+   @Inject
+   PacketOkHttpClientSupplier(@Provider Supplier<URI> endpoint,
+         @Named(HTTP_MAX_IDLE_CONNECTIONS) int maxIdleConnections, @Named(HTTP_KEEP_ALIVE) long keepAliveMillis,
+         @Named(HTTP_WARM_UP_CONNECTIONS) int warmUpConnections) {
+      this.endpoint = endpoint;
+      this.maxIdleConnections = maxIdleConnections;
+      this.keepAliveMillis = keepAliveMillis;
+      this.warmUpConnections = warmUpConnections;
+   }
+
+   @Override
+   public OkHttpClient get() {
+      OkHttpClient client = new OkHttpClient();
+      client.setConnectionPool(new ConnectionPool(maxIdleConnections, keepAliveMillis));
+      warmUp(client);
+      return client;
+   }
+
+   /**
+    * Sends a few asynchronous HEAD requests to the endpoint, so the TCP and TLS
+    * handshakes happen before the first API calls and the connections are left
+    * in the pool.
+    */
+   private void warmUp(OkHttpClient client) {
+      for (int i = 0; i < warmUpConnections; i++) {
+         Request request = new Request.Builder().url(endpoint.get().toString()).head().build();
+         client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Response response) throws IOException {
+               response.body().close();
+            }
+
+            @Override
+            public void onFailure(Request request, IOException e) {
+               logger.debug("Could not warm up a connection to %s: %s", request.urlString(), e.getMessage());
+            }
+         });
+      }
+   }
+}
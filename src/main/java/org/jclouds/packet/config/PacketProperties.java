@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.config;
+
+/**
+ * Configuration properties and constants used in Packet connections.
+ */
+public final class PacketProperties {
+
+   /**
+    * Number of devices requested per page when the compute service lists the devices of a project.
+    */
+   public static final String DEVICE_PAGE_SIZE = "jclouds.packet.device-page-size";
+
+   /**
+    * Whether the compute service keeps a per-project inventory of devices instead of listing them on every
+    * call. Disabled by default.
+    */
+   public static final String INVENTORY_CACHE_ENABLED = "jclouds.packet.inventory-cache.enabled";
+
+   /**
+    * Time, in milliseconds, after which a cached project inventory is refreshed on the next access.
+    */
+   public static final String INVENTORY_CACHE_TTL = "jclouds.packet.inventory-cache.ttl";
+
+   /**
+    * Maximum age, in milliseconds, of a cached project inventory. A stale inventory keeps being served while
+    * it is being refreshed, or if the refresh fails, until it reaches this age.
+    */
+   public static final String INVENTORY_CACHE_MAX_STALENESS = "jclouds.packet.inventory-cache.max-staleness";
+
+   /**
+    * Maximum number of ids for which {@code listNodesByIds} looks up each device individually. Bigger sets of ids
+    * are resolved from a single (paginated) listing of the project.
+    */
+   public static final String LIST_NODES_BY_IDS_THRESHOLD = "jclouds.packet.list-nodes-by-ids.threshold";
+
+   /**
+    * Maximum number of concurrent device lookups issued by {@code listNodesByIds}.
+    */
+   public static final String LIST_NODES_BY_IDS_PARALLELISM = "jclouds.packet.list-nodes-by-ids.parallelism";
+
+   /**
+    * Time, in milliseconds, after which the shared catalog of operating systems is refreshed on the next access.
+    */
+   public static final String OPERATING_SYSTEM_CATALOG_REFRESH_INTERVAL = "jclouds.packet.operating-system-catalog.refresh-interval";
+
+   /**
+    * Time, in milliseconds, between two consecutive ticks of the shared device state poller. Each tick lists
+    * the devices of every project with pending devices once.
+    */
+   public static final String DEVICE_STATE_POLLER_PERIOD = "jclouds.packet.device-state-poller.period";
+
+   /**
+    * Whether the shared device state poller reads the events feed of the projects to find the devices that changed,
+    * instead of listing all the devices on every tick.
+    */
+   public static final String DEVICE_STATE_POLLER_EVENTS_ENABLED = "jclouds.packet.device-state-poller.events-enabled";
+
+   /**
+    * Maximum time, in milliseconds, between two checks of a device being provisioned. Devices are checked less
+    * often than every tick of the poller while they are not expected to be ready yet.
+    */
+   public static final String DEVICE_STATE_POLLER_MAX_PERIOD = "jclouds.packet.device-state-poller.max-period";
+
+   /**
+    * File where the provisioning times of the devices are kept, so the adaptive polling schedules and the
+    * provisioning statistics survive the context. Set to an empty string (the default) to keep them in memory only.
+    */
+   public static final String PROVISIONING_TIMES_FILE = "jclouds.packet.provisioning-times.file";
+
+   /**
+    * Maximum number of concurrent requests used to clean up the SSH keys auto-generated for a group of nodes.
+    */
+   public static final String SSH_KEY_CLEANUP_PARALLELISM = "jclouds.packet.ssh-key-cleanup.parallelism";
+
+   /**
+    * Maximum number of concurrent delete requests issued when destroying nodes in bulk.
+    */
+   public static final String DESTROY_NODES_PARALLELISM = "jclouds.packet.destroy-nodes.parallelism";
+
+   /**
+    * Time, in milliseconds, after which the local index of the account SSH keys is refreshed on the next access.
+    */
+   public static final String SSH_KEY_CACHE_TTL = "jclouds.packet.ssh-key-cache.ttl";
+
+   /**
+    * Client-side rate limits, in permits per second, as a comma separated list of
+    * <code>operation=permits</code> entries. Operations are the names of the API methods, such as
+    * <code>device:create</code>, and can use wildcards: <code>device:*</code> applies to all device operations
+    * and <code>*</code> to all operations without a more specific entry. For example:
+    * <code>device:*=5,sshKey:*=2,*=10</code>.
+    */
+   public static final String RATE_LIMIT_PERMITS = "jclouds.packet.rate-limit.permits";
+
+   /**
+    * Maximum time, in milliseconds, to wait before retrying a request that was rejected because the rate limit was
+    * exceeded. Requests that would need to wait longer fail immediately.
+    */
+   public static final String RATE_LIMIT_MAX_WAIT = "jclouds.packet.rate-limit.max-wait";
+
+   /**
+    * Whether the latency, status codes, retries and response sizes of each API operation are recorded in
+    * {@link org.jclouds.packet.metrics.PacketMetrics}.
+    */
+   public static final String METRICS_ENABLED = "jclouds.packet.metrics.enabled";
+
+   /**
+    * Whether the {@link org.jclouds.packet.metrics.PacketMetrics} are exposed as a JMX MBean. Each context registers
+    * its own MBean, which is unregistered when the context is closed. Disabled by default.
+    */
+   public static final String METRICS_JMX_ENABLED = "jclouds.packet.metrics.jmx-enabled";
+
+   /**
+    * Maximum number of idle keep-alive connections kept in the HTTP connection pool. All the requests go to the
+    * Packet API endpoint, so this is effectively the number of pooled connections per route.
+    */
+   public static final String HTTP_MAX_IDLE_CONNECTIONS = "jclouds.packet.http.max-idle-connections";
+
+   /**
+    * Time, in milliseconds, after which idle connections are evicted from the HTTP connection pool.
+    */
+   public static final String HTTP_KEEP_ALIVE = "jclouds.packet.http.keep-alive";
+
+   /**
+    * Number of connections to the Packet API endpoint opened in the background when the context is built, so the
+    * first requests do not pay for the TLS handshakes. Set to 0 to disable the warm-up.
+    */
+   public static final String HTTP_WARM_UP_CONNECTIONS = "jclouds.packet.http.warm-up-connections";
+
+   /**
+    * Comma separated list of the operations whose responses are cached and revalidated with conditional requests
+    * (<code>If-None-Match</code> and <code>If-Modified-Since</code>). Set to an empty string to disable the cache.
+    */
+   public static final String CONDITIONAL_REQUEST_OPERATIONS = "jclouds.packet.conditional-request.operations";
+
+   /**
+    * Directory where a snapshot of the plan, facility and operating system catalogs is kept, so new contexts can
+   * build templates without waiting for the catalogs to be downloaded. The snapshot is refreshed in the background
+   * once per context. Set to an empty string (the default) to disable it.
+   */
+   public static final String CATALOG_SNAPSHOT_DIR = "jclouds.packet.catalog-snapshot.dir";
+
+   /**
+    * Time, in milliseconds, after which a catalog snapshot is considered too old to be used.
+    */
+   public static final String CATALOG_SNAPSHOT_MAX_AGE = "jclouds.packet.catalog-snapshot.max-age";
+
+   /**
+    * Whether the capacity of the plan in the facility is checked before creating the nodes of a group. Disabled by
+    * default.
+    */
+   public static final String CAPACITY_CHECK_ENABLED = "jclouds.packet.capacity-check.enabled";
+
+   /**
+    * Comma separated list of the facilities, in order of preference, where the nodes of a group are created when
+    * the facility of the template has no capacity for the plan. When empty (the default), the group creation fails
+    * before any device is created. Only used when {@link #CAPACITY_CHECK_ENABLED} is set.
+    */
+   public static final String CAPACITY_CHECK_FALLBACK_FACILITIES = "jclouds.packet.capacity-check.fallback-facilities";
+
+   /**
+    * Time, in milliseconds, the capacity reported by the API is cached.
+    */
+   public static final String CAPACITY_CACHE_TTL = "jclouds.packet.capacity-cache.ttl";
+
+   private PacketProperties() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+}
@@ -0,0 +1,585 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.config;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jclouds.packet.domain.Device;
+import org.jclouds.packet.domain.Facility;
+import org.jclouds.packet.domain.Href;
+import org.jclouds.packet.domain.IpAddress;
+import org.jclouds.packet.domain.OperatingSystem;
+import org.jclouds.packet.domain.Plan;
+import org.jclouds.packet.domain.Pricing;
+import org.jclouds.packet.domain.Project;
+import org.jclouds.packet.domain.Specs;
+import org.jclouds.packet.domain.SshKey;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Streaming Gson adapters for the Packet domain objects.
+ * <p>
+ * By default the domain objects are decoded reflectively through their
+ * <code>@SerializedNames</code> factory methods. These adapters read the
+ * fields straight from the token stream into the same factory methods, so
+ * list decoding does not pay for reflection and intermediate boxing. Nested
+ * values are read with the adapters registered in the {@link Gson} instance,
+ * so custom date, enum and collection handling is preserved. Serialization is
+ * delegated to the default adapters.
+ * <p>
+ * The fields of each adapter must be kept in sync with the
+ * <code>@SerializedNames</code> of the factory method it calls.
+ * <code>PacketComputeParserModuleTest</code> decodes a value with every field
+ * set through both paths, and fails when they differ.
+ */
+public final class PacketTypeAdapterFactory implements TypeAdapterFactory {
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+      Class<? super T> raw = type.getRawType();
+      TypeAdapter<?> adapter;
+      if (raw == Device.class) {
+         adapter = new DeviceAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(Device.class)));
+      } else if (raw == Plan.class) {
+         adapter = new PlanAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(Plan.class)));
+      } else if (raw == Specs.class) {
+         adapter = new SpecsAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(Specs.class)));
+      } else if (raw == IpAddress.class) {
+         adapter = new IpAddressAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(IpAddress.class)));
+      } else if (raw == OperatingSystem.class) {
+         adapter = new OperatingSystemAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(OperatingSystem.class)));
+      } else if (raw == Facility.class) {
+         adapter = new FacilityAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(Facility.class)));
+      } else if (raw == SshKey.class) {
+         adapter = new SshKeyAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(SshKey.class)));
+      } else if (raw == Project.class) {
+         adapter = new ProjectAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(Project.class)));
+      } else if (raw == Href.class) {
+         adapter = new HrefAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(Href.class)));
+      } else if (raw == Pricing.class) {
+         adapter = new PricingAdapter(gson.getDelegateAdapter(this, TypeToken.get(Pricing.class)));
+      } else {
+         return null;
+      }
+      return (TypeAdapter<T>) adapter;
+   }
+
+   /**
+    * Reads a JSON object field by field, and delegates the serialization.
+    */
+   private abstract static class ObjectAdapter<T> extends TypeAdapter<T> {
+      private final TypeAdapter<T> delegate;
+
+      ObjectAdapter(TypeAdapter<T> delegate) {
+         this.delegate = delegate;
+      }
+
+      @Override
+      public void write(JsonWriter out, T value) throws IOException {
+         delegate.write(out, value);
+      }
+
+      @Override
+      public T read(JsonReader in) throws IOException {
+         if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+         }
+         in.beginObject();
+         T value = readFields(in);
+         in.endObject();
+         return value;
+      }
+
+      /**
+       * Reads all the fields of the current object, skipping the unknown ones.
+       */
+      protected abstract T readFields(JsonReader in) throws IOException;
+   }
+
+   private static Integer nextInteger(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+         in.nextNull();
+         return null;
+      }
+      return in.nextInt();
+   }
+
+   private static Boolean nextBoolean(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+         in.nextNull();
+         return null;
+      }
+      return in.nextBoolean();
+   }
+
+   @SuppressWarnings("serial")
+   private static final TypeToken<List<String>> STRING_LIST = new TypeToken<List<String>>() {
+   };
+   @SuppressWarnings("serial")
+   private static final TypeToken<Set<String>> STRING_SET = new TypeToken<Set<String>>() {
+   };
+   @SuppressWarnings("serial")
+   private static final TypeToken<List<Href>> HREF_LIST = new TypeToken<List<Href>>() {
+   };
+   @SuppressWarnings("serial")
+   private static final TypeToken<List<IpAddress>> IP_ADDRESS_LIST = new TypeToken<List<IpAddress>>() {
+   };
+   @SuppressWarnings("serial")
+   private static final TypeToken<List<Object>> OBJECT_LIST = new TypeToken<List<Object>>() {
+   };
+   @SuppressWarnings("serial")
+   private static final TypeToken<Map<String, Object>> OBJECT_MAP = new TypeToken<Map<String, Object>>() {
+   };
+   @SuppressWarnings("serial")
+   private static final TypeToken<List<Specs.CPU>> CPU_LIST = new TypeToken<List<Specs.CPU>>() {
+   };
+   @SuppressWarnings("serial")
+   private static final TypeToken<List<Specs.Drive>> DRIVE_LIST = new TypeToken<List<Specs.Drive>>() {
+   };
+   @SuppressWarnings("serial")
+   private static final TypeToken<List<Specs.NIC>> NIC_LIST = new TypeToken<List<Specs.NIC>>() {
+   };
+
+   private static final class DeviceAdapter extends ObjectAdapter<Device> {
+      private final TypeAdapter<String> strings;
+      private final TypeAdapter<Date> dates;
+      private final TypeAdapter<Device.State> states;
+      private final TypeAdapter<List<String>> stringLists;
+      private final TypeAdapter<OperatingSystem> operatingSystems;
+      private final TypeAdapter<Facility> facilities;
+      private final TypeAdapter<Href> hrefs;
+      private final TypeAdapter<List<Object>> objectLists;
+      private final TypeAdapter<List<IpAddress>> ipAddressLists;
+      private final TypeAdapter<Plan> plans;
+
+      DeviceAdapter(Gson gson, TypeAdapter<Device> delegate) {
+         super(delegate);
+         this.strings = gson.getAdapter(String.class);
+         this.dates = gson.getAdapter(Date.class);
+         this.states = gson.getAdapter(Device.State.class);
+         this.stringLists = gson.getAdapter(STRING_LIST);
+         this.operatingSystems = gson.getAdapter(OperatingSystem.class);
+         this.facilities = gson.getAdapter(Facility.class);
+         this.hrefs = gson.getAdapter(Href.class);
+         this.objectLists = gson.getAdapter(OBJECT_LIST);
+         this.ipAddressLists = gson.getAdapter(IP_ADDRESS_LIST);
+         this.plans = gson.getAdapter(Plan.class);
+      }
+
+      @Override
+      protected Device readFields(JsonReader in) throws IOException {
+         String id = null;
+         String shortId = null;
+         String hostname = null;
+         String description = null;
+         Device.State state = null;
+         List<String> tags = null;
+         String billingCycle = null;
+         String user = null;
+         String iqn = null;
+         Boolean locked = null;
+         String bondingMode = null;
+         Date createdAt = null;
+         Date updatedAt = null;
+         OperatingSystem operatingSystem = null;
+         Facility facility = null;
+         Href project = null;
+         Href projectLite = null;
+         List<Object> volumes = null;
+         List<IpAddress> ipAddresses = null;
+         Plan plan = null;
+         String rootPassword = null;
+         String userdata = null;
+         String href = null;
+
+         while (in.hasNext()) {
+            switch (in.nextName()) {
+               case "id": id = strings.read(in); break;
+               case "short_id": shortId = strings.read(in); break;
+               case "hostname": hostname = strings.read(in); break;
+               case "description": description = strings.read(in); break;
+               case "state": state = states.read(in); break;
+               case "tags": tags = stringLists.read(in); break;
+               case "billing_cycle": billingCycle = strings.read(in); break;
+               case "user": user = strings.read(in); break;
+               case "iqn": iqn = strings.read(in); break;
+               case "locked": locked = nextBoolean(in); break;
+               case "bonding_mode": bondingMode = strings.read(in); break;
+               case "created_at": createdAt = dates.read(in); break;
+               case "updated_at": updatedAt = dates.read(in); break;
+               case "operating_system": operatingSystem = operatingSystems.read(in); break;
+               case "facility": facility = facilities.read(in); break;
+               case "project": project = hrefs.read(in); break;
+               case "project_lite": projectLite = hrefs.read(in); break;
+               case "volumes": volumes = objectLists.read(in); break;
+               case "ip_addresses": ipAddresses = ipAddressLists.read(in); break;
+               case "plan": plan = plans.read(in); break;
+               case "root_password": rootPassword = strings.read(in); break;
+               case "userdata": userdata = strings.read(in); break;
+               case "href": href = strings.read(in); break;
+               default: in.skipValue();
+            }
+         }
+         return Device.create(id, shortId, hostname, description, state, tags, billingCycle, user, iqn, locked,
+               bondingMode, createdAt, updatedAt, operatingSystem, facility, project, projectLite, volumes,
+               ipAddresses, plan, rootPassword, userdata, href);
+      }
+   }
+
+   private static final class PlanAdapter extends ObjectAdapter<Plan> {
+      private final TypeAdapter<String> strings;
+      private final TypeAdapter<Specs> specs;
+      private final TypeAdapter<List<Href>> hrefLists;
+      private final TypeAdapter<Pricing> pricings;
+
+      PlanAdapter(Gson gson, TypeAdapter<Plan> delegate) {
+         super(delegate);
+         this.strings = gson.getAdapter(String.class);
+         this.specs = gson.getAdapter(Specs.class);
+         this.hrefLists = gson.getAdapter(HREF_LIST);
+         this.pricings = gson.getAdapter(Pricing.class);
+      }
+
+      @Override
+      protected Plan readFields(JsonReader in) throws IOException {
+         String id = null;
+         String slug = null;
+         String name = null;
+         String description = null;
+         String line = null;
+         Specs planSpecs = null;
+         List<Href> availableIn = null;
+         Pricing pricing = null;
+
+         while (in.hasNext()) {
+            switch (in.nextName()) {
+               case "id": id = strings.read(in); break;
+               case "slug": slug = strings.read(in); break;
+               case "name": name = strings.read(in); break;
+               case "description": description = strings.read(in); break;
+               case "line": line = strings.read(in); break;
+               case "specs": planSpecs = specs.read(in); break;
+               case "available_in": availableIn = hrefLists.read(in); break;
+               case "pricing": pricing = pricings.read(in); break;
+               default: in.skipValue();
+            }
+         }
+         return Plan.create(id, slug, name, description, line, planSpecs, availableIn, pricing);
+      }
+   }
+
+   private static final class SpecsAdapter extends ObjectAdapter<Specs> {
+      private final TypeAdapter<List<Specs.CPU>> cpuLists;
+      private final TypeAdapter<Specs.Memory> memories;
+      private final TypeAdapter<List<Specs.Drive>> driveLists;
+      private final TypeAdapter<List<Specs.NIC>> nicLists;
+      private final TypeAdapter<Map<String, Object>> objectMaps;
+
+      SpecsAdapter(Gson gson, TypeAdapter<Specs> delegate) {
+         super(delegate);
+         this.cpuLists = gson.getAdapter(CPU_LIST);
+         this.memories = gson.getAdapter(Specs.Memory.class);
+         this.driveLists = gson.getAdapter(DRIVE_LIST);
+         this.nicLists = gson.getAdapter(NIC_LIST);
+         this.objectMaps = gson.getAdapter(OBJECT_MAP);
+      }
+
+      @Override
+      protected Specs readFields(JsonReader in) throws IOException {
+         List<Specs.CPU> cpus = null;
+         Specs.Memory memory = null;
+         List<Specs.Drive> drives = null;
+         List<Specs.NIC> nics = null;
+         Map<String, Object> features = null;
+
+         while (in.hasNext()) {
+            switch (in.nextName()) {
+               case "cpus": cpus = cpuLists.read(in); break;
+               case "memory": memory = memories.read(in); break;
+               case "drives": drives = driveLists.read(in); break;
+               case "nics": nics = nicLists.read(in); break;
+               case "features": features = objectMaps.read(in); break;
+               default: in.skipValue();
+            }
+         }
+         return Specs.create(cpus, memory, drives, nics, features);
+      }
+   }
+
+   private static final class IpAddressAdapter extends ObjectAdapter<IpAddress> {
+      private final TypeAdapter<String> strings;
+      private final TypeAdapter<Href> hrefs;
+
+      IpAddressAdapter(Gson gson, TypeAdapter<IpAddress> delegate) {
+         super(delegate);
+         this.strings = gson.getAdapter(String.class);
+         this.hrefs = gson.getAdapter(Href.class);
+      }
+
+      @Override
+      protected IpAddress readFields(JsonReader in) throws IOException {
+         String id = null;
+         Integer addressFamily = null;
+         String netmask = null;
+         Boolean publicAddress = null;
+         Integer cidr = null;
+         Boolean management = null;
+         Boolean manageable = null;
+         Href assignedTo = null;
+         String network = null;
+         String address = null;
+         String gateway = null;
+         String href = null;
+
+         while (in.hasNext()) {
+            switch (in.nextName()) {
+               case "id": id = strings.read(in); break;
+               case "address_family": addressFamily = nextInteger(in); break;
+               case "netmask": netmask = strings.read(in); break;
+               case "public": publicAddress = nextBoolean(in); break;
+               case "cidr": cidr = nextInteger(in); break;
+               case "management": management = nextBoolean(in); break;
+               case "manageable": manageable = nextBoolean(in); break;
+               case "assigned_to": assignedTo = hrefs.read(in); break;
+               case "network": network = strings.read(in); break;
+               case "address": address = strings.read(in); break;
+               case "gateway": gateway = strings.read(in); break;
+               case "href": href = strings.read(in); break;
+               default: in.skipValue();
+            }
+         }
+         return IpAddress.create(id, addressFamily, netmask, publicAddress, cidr, management, manageable, assignedTo,
+               network, address, gateway, href);
+      }
+   }
+
+   private static final class OperatingSystemAdapter extends ObjectAdapter<OperatingSystem> {
+      private final TypeAdapter<String> strings;
+      private final TypeAdapter<Set<String>> stringSets;
+
+      OperatingSystemAdapter(Gson gson, TypeAdapter<OperatingSystem> delegate) {
+         super(delegate);
+         this.strings = gson.getAdapter(String.class);
+         this.stringSets = gson.getAdapter(STRING_SET);
+      }
+
+      @Override
+      protected OperatingSystem readFields(JsonReader in) throws IOException {
+         String id = null;
+         String slug = null;
+         String name = null;
+         String distribution = null;
+         String version = null;
+         Set<String> provisionableOn = null;
+
+         while (in.hasNext()) {
+            switch (in.nextName()) {
+               case "id": id = strings.read(in); break;
+               case "slug": slug = strings.read(in); break;
+               case "name": name = strings.read(in); break;
+               case "distro": distribution = strings.read(in); break;
+               case "version": version = strings.read(in); break;
+               case "provisionable_on": provisionableOn = stringSets.read(in); break;
+               default: in.skipValue();
+            }
+         }
+         return OperatingSystem.create(id, slug, name, distribution, version, provisionableOn);
+      }
+   }
+
+   private static final class FacilityAdapter extends ObjectAdapter<Facility> {
+      private final TypeAdapter<String> strings;
+      private final TypeAdapter<List<String>> stringLists;
+
+      FacilityAdapter(Gson gson, TypeAdapter<Facility> delegate) {
+         super(delegate);
+         this.strings = gson.getAdapter(String.class);
+         this.stringLists = gson.getAdapter(STRING_LIST);
+      }
+
+      @Override
+      protected Facility readFields(JsonReader in) throws IOException {
+         String id = null;
+         String name = null;
+         String code = null;
+         List<String> features = null;
+         String address = null;
+
+         while (in.hasNext()) {
+            switch (in.nextName()) {
+               case "id": id = strings.read(in); break;
+               case "name": name = strings.read(in); break;
+               case "code": code = strings.read(in); break;
+               case "features": features = stringLists.read(in); break;
+               case "address": address = strings.read(in); break;
+               default: in.skipValue();
+            }
+         }
+         return Facility.create(id, name, code, features, address);
+      }
+   }
+
+   private static final class SshKeyAdapter extends ObjectAdapter<SshKey> {
+      private final TypeAdapter<String> strings;
+      private final TypeAdapter<Date> dates;
+      private final TypeAdapter<SshKey.Owner> owners;
+
+      SshKeyAdapter(Gson gson, TypeAdapter<SshKey> delegate) {
+         super(delegate);
+         this.strings = gson.getAdapter(String.class);
+         this.dates = gson.getAdapter(Date.class);
+         this.owners = gson.getAdapter(SshKey.Owner.class);
+      }
+
+      @Override
+      protected SshKey readFields(JsonReader in) throws IOException {
+         String id = null;
+         String label = null;
+         String key = null;
+         String fingerprint = null;
+         Date createdAt = null;
+         Date updatedAt = null;
+         SshKey.Owner owner = null;
+         String href = null;
+
+         while (in.hasNext()) {
+            switch (in.nextName()) {
+               case "id": id = strings.read(in); break;
+               case "label": label = strings.read(in); break;
+               case "key": key = strings.read(in); break;
+               case "fingerprint": fingerprint = strings.read(in); break;
+               case "created_at": createdAt = dates.read(in); break;
+               case "updated_at": updatedAt = dates.read(in); break;
+               case "owner": owner = owners.read(in); break;
+               case "href": href = strings.read(in); break;
+               default: in.skipValue();
+            }
+         }
+         return SshKey.create(id, label, key, fingerprint, createdAt, updatedAt, owner, href);
+      }
+   }
+
+   private static final class ProjectAdapter extends ObjectAdapter<Project> {
+      private final TypeAdapter<String> strings;
+      private final TypeAdapter<Date> dates;
+      private final TypeAdapter<Map<String, Object>> objectMaps;
+      private final TypeAdapter<Href> hrefs;
+      private final TypeAdapter<List<Href>> hrefLists;
+
+      ProjectAdapter(Gson gson, TypeAdapter<Project> delegate) {
+         super(delegate);
+         this.strings = gson.getAdapter(String.class);
+         this.dates = gson.getAdapter(Date.class);
+         this.objectMaps = gson.getAdapter(OBJECT_MAP);
+         this.hrefs = gson.getAdapter(Href.class);
+         this.hrefLists = gson.getAdapter(HREF_LIST);
+      }
+
+      @Override
+      protected Project readFields(JsonReader in) throws IOException {
+         String id = null;
+         String name = null;
+         Date createdAt = null;
+         Date updatedAt = null;
+         Map<String, Object> maxDevices = null;
+         List<Href> members = null;
+         List<Href> memberships = null;
+         List<Href> invitations = null;
+         Href paymentMethod = null;
+         List<Href> devices = null;
+         List<Href> sshKeys = null;
+         List<Href> volumes = null;
+         String href = null;
+
+         while (in.hasNext()) {
+            switch (in.nextName()) {
+               case "id": id = strings.read(in); break;
+               case "name": name = strings.read(in); break;
+               case "created_at": createdAt = dates.read(in); break;
+               case "updated_at": updatedAt = dates.read(in); break;
+               case "max_devices": maxDevices = objectMaps.read(in); break;
+               case "members": members = hrefLists.read(in); break;
+               case "memberships": memberships = hrefLists.read(in); break;
+               case "invitations": invitations = hrefLists.read(in); break;
+               case "payment_method": paymentMethod = hrefs.read(in); break;
+               case "devices": devices = hrefLists.read(in); break;
+               case "ssh_keys": sshKeys = hrefLists.read(in); break;
+               case "volumes": volumes = hrefLists.read(in); break;
+               case "href": href = strings.read(in); break;
+               default: in.skipValue();
+            }
+         }
+         return Project.create(id, name, createdAt, updatedAt, maxDevices, members, memberships, invitations,
+               paymentMethod, devices, sshKeys, volumes, href);
+      }
+   }
+
+   private static final class HrefAdapter extends ObjectAdapter<Href> {
+      private final TypeAdapter<String> strings;
+
+      HrefAdapter(Gson gson, TypeAdapter<Href> delegate) {
+         super(delegate);
+         this.strings = gson.getAdapter(String.class);
+      }
+
+      @Override
+      protected Href readFields(JsonReader in) throws IOException {
+         String href = null;
+         while (in.hasNext()) {
+            if ("href".equals(in.nextName())) {
+               href = strings.read(in);
+            } else {
+               in.skipValue();
+            }
+         }
+         return Href.create(href);
+      }
+   }
+
+   private static final class PricingAdapter extends ObjectAdapter<Pricing> {
+
+      PricingAdapter(TypeAdapter<Pricing> delegate) {
+         super(delegate);
+      }
+
+      @Override
+      protected Pricing readFields(JsonReader in) throws IOException {
+         double hour = 0;
+         while (in.hasNext()) {
+            if ("hour".equals(in.nextName()) && in.peek() != JsonToken.NULL) {
+               hour = in.nextDouble();
+            } else {
+               in.skipValue();
+            }
+         }
+         return Pricing.create(hour);
+      }
+   }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.domain;
+
+import org.jclouds.json.SerializedNames;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * The stock level of a plan in a facility.
+ */
+@AutoValue
+public abstract class Capacity {
+
+    public static final String UNAVAILABLE = "unavailable";
+
+    public abstract String level();
+
+    /**
+     * Whether there are servers of the plan left in the facility.
+     */
+    public boolean isAvailable() {
+        return !UNAVAILABLE.equalsIgnoreCase(level());
+    }
+
+    @SerializedNames({ "level" })
+    public static Capacity create(String level) {
+        return new AutoValue_Capacity(level);
+    }
+
+    Capacity() {}
+}
@@ -30,6 +30,14 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 
+/**
+ * A device in a project.
+ * <p>
+ * The devices returned by the {@link org.jclouds.packet.features.DeviceApi} have all their fields populated. The
+ * {@link #operatingSystem()}, {@link #facility()}, {@link #plan()}, {@link #rootPassword()} and {@link #userdata()}
+ * are only <code>null</code> in the devices decoded with a field projection by
+ * {@link org.jclouds.packet.compute.internal.DeviceStreamParser}, when those fields were not requested.
+ */
 @AutoValue
 public abstract class Device {
 
@@ -57,14 +65,19 @@ public abstract class Device {
     public abstract String bondingMode();
     public abstract Date createdAt();
     public abstract Date updatedAt();
+    @Nullable
     public abstract OperatingSystem operatingSystem();
+    @Nullable
     public abstract Facility facility();
     public abstract Href project();
     public abstract Href projectLite();
     public abstract List<Object> volumes();
     public abstract List<IpAddress> ipAddresses();
+    @Nullable
     public abstract Plan plan();
+    @Nullable
     public abstract String rootPassword();
+    @Nullable
     public abstract String userdata();
     public abstract String href();
 
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.domain;
+
+import java.util.List;
+
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The subset of the {@link Device} properties needed to list a fleet.
+ */
+@AutoValue
+public abstract class DeviceSummary {
+
+    public abstract String id();
+    public abstract String hostname();
+    public abstract Device.State state();
+    @Nullable
+    public abstract String facilityCode();
+    @Nullable
+    public abstract String planSlug();
+    public abstract List<String> tags();
+    public abstract List<IpAddress> ipAddresses();
+
+    public static DeviceSummary create(String id, String hostname, Device.State state, String facilityCode,
+                                       String planSlug, List<String> tags, List<IpAddress> ipAddresses) {
+        return new AutoValue_DeviceSummary(id, hostname, state, facilityCode, planSlug,
+                tags == null ? ImmutableList.<String> of() : ImmutableList.copyOf(tags),
+                ipAddresses == null ? ImmutableList.<IpAddress> of() : ImmutableList.copyOf(ipAddresses));
+    }
+
+    DeviceSummary() {
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.domain;
+
+import java.util.Date;
+import java.util.List;
+
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.json.SerializedNames;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+
+@AutoValue
+public abstract class Event {
+
+    public abstract String id();
+    @Nullable public abstract String state();
+    @Nullable public abstract String type();
+    @Nullable public abstract String body();
+    public abstract List<Href> relationships();
+    @Nullable public abstract String interpolated();
+    public abstract Date createdAt();
+    public abstract String href();
+
+    @SerializedNames({ "id", "state", "type", "body", "relationships", "interpolated", "created_at", "href" })
+    public static Event create(String id, String state, String type, String body, List<Href> relationships,
+                               String interpolated, Date createdAt, String href) {
+        return new AutoValue_Event(id, state, type, body,
+                relationships == null ? ImmutableList.<Href> of() : ImmutableList.copyOf(relationships),
+                interpolated, createdAt, href);
+    }
+
+    Event() {}
+}
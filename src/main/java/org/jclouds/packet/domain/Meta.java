@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.domain;
+
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.json.SerializedNames;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * Pagination links returned by the Packet API with every collection.
+ */
+@AutoValue
+public abstract class Meta {
+
+    @Nullable public abstract Href first();
+    @Nullable public abstract Href previous();
+    @Nullable public abstract Href self();
+    @Nullable public abstract Href next();
+    @Nullable public abstract Href last();
+    public abstract int total();
+
+    @SerializedNames({ "first", "previous", "self", "next", "last", "total" })
+    public static Meta create(Href first, Href previous, Href self, Href next, Href last, int total) {
+        return new AutoValue_Meta(first, previous, self, next, last, total);
+    }
+
+    Meta() {}
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.domain;
+
+import static com.google.common.collect.Iterables.getFirst;
+import static org.jclouds.http.utils.Queries.queryParser;
+import static org.jclouds.packet.domain.options.ListOptions.PAGE_PARAM;
+import static org.jclouds.packet.domain.options.ListOptions.PER_PAGE_PARAM;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.packet.domain.options.ListOptions;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multimap;
+
+/**
+ * Base class for all collections that return paginated results.
+ */
+public abstract class PaginatedCollection<T> extends IterableWithMarker<T> {
+
+   private final List<T> items;
+   private final Meta meta;
+
+   protected PaginatedCollection(List<T> items, Meta meta) {
+      this.items = items == null ? ImmutableList.<T> of() : ImmutableList.copyOf(items);
+      this.meta = meta;
+   }
+
+   public List<T> items() {
+      return items;
+   }
+
+   public Meta meta() {
+      return meta;
+   }
+
+   @Override
+   public Iterator<T> iterator() {
+      return items.iterator();
+   }
+
+   /**
+    * The marker is the {@link ListOptions} that select the next page, as advertised in the
+    * <code>meta.next</code> link.
+    */
+   @Override
+   public Optional<Object> nextMarker() {
+      return Optional.<Object> fromNullable(nextPage(meta).orNull());
+   }
+
+   /**
+    * Returns the {@link ListOptions} that select the page advertised in the <code>meta.next</code> link of the
+    * given pagination metadata, or absent if it is the last page.
+    */
+   public static Optional<ListOptions> nextPage(@Nullable Meta meta) {
+      if (meta == null || meta.next() == null) {
+         return Optional.absent();
+      }
+      Multimap<String, String> params = queryParser().apply(URI.create(meta.next().href()).getRawQuery());
+      String page = getFirst(params.get(PAGE_PARAM), null);
+      if (page == null) {
+         return Optional.absent();
+      }
+      ListOptions options = ListOptions.Builder.page(Integer.parseInt(page));
+      String perPage = getFirst(params.get(PER_PAGE_PARAM), null);
+      if (perPage != null) {
+         options.perPage(Integer.parseInt(perPage));
+      }
+      return Optional.of(options);
+   }
+}
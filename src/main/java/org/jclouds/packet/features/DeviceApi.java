@@ -31,27 +31,49 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 
+import org.jclouds.Fallbacks.EmptyIterableWithMarkerOnNotFoundOr404;
 import org.jclouds.Fallbacks.EmptyListOnNotFoundOr404;
+import org.jclouds.Fallbacks.EmptyPagedIterableOnNotFoundOr404;
 import org.jclouds.Fallbacks.NullOnNotFoundOr404;
 import org.jclouds.Fallbacks.VoidOnNotFoundOr404;
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.collect.PagedIterable;
+import org.jclouds.http.HttpResponse;
 import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.packet.domain.ActionType;
 import org.jclouds.packet.domain.Device;
+import org.jclouds.packet.domain.DeviceSummary;
+import org.jclouds.packet.domain.options.ListOptions;
 import org.jclouds.packet.filters.AddXAuthTokenToRequest;
+import org.jclouds.packet.filters.ThrottleRequests;
+import org.jclouds.packet.functions.ParseDeviceSummaries;
+import org.jclouds.packet.functions.ParseDevices;
 import org.jclouds.packet.functions.URIParser;
 import org.jclouds.rest.annotations.Fallback;
 import org.jclouds.rest.annotations.MapBinder;
 import org.jclouds.rest.annotations.PayloadParam;
+import org.jclouds.rest.annotations.QueryParams;
 import org.jclouds.rest.annotations.RequestFilters;
 import org.jclouds.rest.annotations.ResponseParser;
 import org.jclouds.rest.annotations.SelectJson;
+import org.jclouds.rest.annotations.Transform;
 import org.jclouds.rest.binders.BindToJsonPayload;
 
 @Path("/projects/{projectId}/devices")
 @Consumes(MediaType.APPLICATION_JSON)
-@RequestFilters(AddXAuthTokenToRequest.class)
+@RequestFilters({ AddXAuthTokenToRequest.class, ThrottleRequests.class })
 public interface DeviceApi {
 
+    /**
+     * The related resources expanded when listing {@link DeviceSummary} objects.
+     */
+    String SUMMARY_INCLUDE = "facility,plan";
+
+    /**
+     * The properties left out of the response when listing {@link DeviceSummary} objects.
+     */
+    String SUMMARY_EXCLUDE = "description,operating_system,project,project_lite,volumes,root_password,userdata";
+
     /**
      * List all devices
      */
@@ -61,6 +83,59 @@ public interface DeviceApi {
     @Fallback(EmptyListOnNotFoundOr404.class)
     List<Device> list();
 
+    /**
+     * List a single page of devices
+     */
+    @Named("device:list")
+    @GET
+    @ResponseParser(ParseDevices.class)
+    @Fallback(EmptyIterableWithMarkerOnNotFoundOr404.class)
+    IterableWithMarker<Device> list(ListOptions options);
+
+    /**
+     * List all devices, fetching the pages lazily as they are consumed. The
+     * given options configure the first page and the page size.
+     */
+    @Named("device:list")
+    @GET
+    @ResponseParser(ParseDevices.class)
+    @Transform(ParseDevices.ToPagedIterable.class)
+    @Fallback(EmptyPagedIterableOnNotFoundOr404.class)
+    PagedIterable<Device> listPaged(ListOptions options);
+
+    /**
+     * List all devices with only the properties in {@link DeviceSummary},
+     * asking the server to leave the rest out of the response.
+     */
+    @Named("device:list")
+    @GET
+    @QueryParams(keys = { "include", "exclude" }, values = { SUMMARY_INCLUDE, SUMMARY_EXCLUDE })
+    @ResponseParser(ParseDeviceSummaries.class)
+    @Transform(ParseDeviceSummaries.ToPagedIterable.class)
+    @Fallback(EmptyPagedIterableOnNotFoundOr404.class)
+    PagedIterable<DeviceSummary> listSummaries();
+
+    /**
+     * List a single page of device summaries
+     */
+    @Named("device:list")
+    @GET
+    @QueryParams(keys = { "include", "exclude" }, values = { SUMMARY_INCLUDE, SUMMARY_EXCLUDE })
+    @ResponseParser(ParseDeviceSummaries.class)
+    @Fallback(EmptyIterableWithMarkerOnNotFoundOr404.class)
+    IterableWithMarker<DeviceSummary> listSummaries(ListOptions options);
+
+    /**
+     * Get the raw response for a page of devices, to decode it incrementally
+     * with {@link org.jclouds.packet.compute.internal.DeviceStreamParser}. The caller
+     * is responsible for releasing the payload.
+     */
+    @Named("device:list")
+    @GET
+    @Fallback(NullOnNotFoundOr404.class)
+    @Nullable
+    HttpResponse listResponse(ListOptions options);
+
     @Named("device:create")
     @POST
     @Produces(MediaType.APPLICATION_JSON)
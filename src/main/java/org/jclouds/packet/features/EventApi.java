@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.features;
+
+import javax.inject.Named;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.core.MediaType;
+
+import org.jclouds.Fallbacks.EmptyIterableWithMarkerOnNotFoundOr404;
+import org.jclouds.Fallbacks.NullOnNotFoundOr404;
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.packet.domain.Event;
+import org.jclouds.packet.domain.options.ListOptions;
+import org.jclouds.packet.filters.AddXAuthTokenToRequest;
+import org.jclouds.packet.filters.ThrottleRequests;
+import org.jclouds.packet.functions.ParseEvents;
+import org.jclouds.rest.annotations.Fallback;
+import org.jclouds.rest.annotations.RequestFilters;
+import org.jclouds.rest.annotations.ResponseParser;
+
+/**
+ * Events are listed newest first.
+ */
+@Consumes(MediaType.APPLICATION_JSON)
+@RequestFilters({ AddXAuthTokenToRequest.class, ThrottleRequests.class })
+public interface EventApi {
+
+    /**
+     * List a single page of the events of a project. Errors are propagated, so callers
+     * can tell an unavailable feed from a project without events.
+     */
+    @Named("event:listByProject")
+    @GET
+    @Path("/projects/{projectId}/events")
+    @ResponseParser(ParseEvents.class)
+    IterableWithMarker<Event> listByProject(@PathParam("projectId") String projectId, ListOptions options);
+
+    /**
+     * List a single page of the events of a device
+     */
+    @Named("event:listByDevice")
+    @GET
+    @Path("/devices/{deviceId}/events")
+    @ResponseParser(ParseEvents.class)
+    @Fallback(EmptyIterableWithMarkerOnNotFoundOr404.class)
+    IterableWithMarker<Event> listByDevice(@PathParam("deviceId") String deviceId, ListOptions options);
+
+    @Named("event:get")
+    @GET
+    @Path("/events/{id}")
+    @Fallback(NullOnNotFoundOr404.class)
+    @Nullable
+    Event get(@PathParam("id") String id);
+}
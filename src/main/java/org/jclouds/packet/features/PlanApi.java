@@ -27,13 +27,15 @@ import javax.ws.rs.core.MediaType;
 import org.jclouds.Fallbacks;
 import org.jclouds.packet.domain.Plan;
 import org.jclouds.packet.filters.AddXAuthTokenToRequest;
+import org.jclouds.packet.filters.ThrottleRequests;
+import org.jclouds.packet.functions.ParseCatalog;
 import org.jclouds.rest.annotations.Fallback;
 import org.jclouds.rest.annotations.RequestFilters;
-import org.jclouds.rest.annotations.SelectJson;
+import org.jclouds.rest.annotations.ResponseParser;
 
 @Path("/plans")
 @Consumes(MediaType.APPLICATION_JSON)
-@RequestFilters(AddXAuthTokenToRequest.class)
+@RequestFilters({ AddXAuthTokenToRequest.class, ThrottleRequests.class })
 public interface PlanApi {
 
     /**
@@ -41,7 +43,7 @@ public interface PlanApi {
      */
     @Named("plan:list")
     @GET
-    @SelectJson("plans")
+    @ResponseParser(ParseCatalog.Plans.class)
     @Fallback(Fallbacks.EmptyListOnNotFoundOr404.class)
     List<Plan> list();
 
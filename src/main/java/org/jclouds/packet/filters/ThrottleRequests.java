@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.filters;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.packet.config.PacketProperties.RATE_LIMIT_MAX_WAIT;
+import static org.jclouds.packet.config.PacketProperties.RATE_LIMIT_PERMITS;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.jclouds.Constants;
+import org.jclouds.http.HttpException;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpRequestFilter;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.logging.Logger;
+import org.jclouds.packet.metrics.PacketMetrics;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Client-side rate limiter shared by all the Packet APIs.
+ * <p>
+ * Each request takes a permit from the token bucket configured for its operation (see
+ * {@link org.jclouds.packet.config.PacketProperties#RATE_LIMIT_PERMITS}). When the Packet API reports that the
+ * account rate limit has been exhausted, all requests are held until the rate limit window resets, but never for
+ * longer than {@link org.jclouds.packet.config.PacketProperties#RATE_LIMIT_MAX_WAIT}. The rate limit headers are
+ * read from every response by the {@link Interceptor}.
+ */
+@Singleton
+public class ThrottleRequests implements HttpRequestFilter {
+
+   public static final String RATE_LIMIT_REMAINING = "X-RateLimit-Remaining";
+   public static final String RATE_LIMIT_RESET = "X-RateLimit-Reset";
+
+   private static final String WILDCARD = "*";
+
+   @Resource
+   @Named(Constants.LOGGER_HTTP_HEADERS)
+   protected Logger logger = Logger.NULL;
+
+   private final Map<String, RateLimiter> limiters;
+   private final long maxWait;
+   private volatile long pausedUntil;
+
+   @Inject
+   ThrottleRequests(@Named(RATE_LIMIT_PERMITS) String permits, @Named(RATE_LIMIT_MAX_WAIT) long maxWait) {
+      checkArgument(maxWait >= 0, "maxWait must be greater than or equal to 0");
+      ImmutableMap.Builder<String, RateLimiter> builder = ImmutableMap.builder();
+      for (Map.Entry<String, String> entry : Splitter.on(',').trimResults().omitEmptyStrings()
+            .withKeyValueSeparator(Splitter.on('=').trimResults()).split(permits).entrySet()) {
+         double permitsPerSecond = Double.parseDouble(entry.getValue());
+         checkArgument(permitsPerSecond > 0, "permits for %s must be greater than 0", entry.getKey());
+         builder.put(entry.getKey(), RateLimiter.create(permitsPerSecond));
+      }
+      this.limiters = builder.build();
+      this.maxWait = maxWait;
+   }
+
+   @Override
+   public HttpRequest filter(HttpRequest request) throws HttpException {
+      long pause = pausedMillis();
+      if (pause > 0) {
+         try {
+            Thread.sleep(Math.min(pause, maxWait));
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpException("interrupted while waiting for the rate limit window to reset", e);
+         }
+      }
+      RateLimiter limiter = limiterFor(PacketMetrics.operationOf(request));
+      if (limiter != null) {
+         limiter.acquire();
+      }
+      return request;
+   }
+
+   /**
+    * Holds all the requests for the given time, up to the configured maximum wait.
+    */
+   public void pauseFor(long millis) {
+      if (millis > maxWait) {
+         logger.warn("rate limit exceeded: holding the requests for %sms instead of %sms", maxWait, millis);
+      }
+      long until = System.currentTimeMillis() + Math.min(millis, maxWait);
+      synchronized (this) {
+         if (until > pausedUntil) {
+            pausedUntil = until;
+         }
+      }
+   }
+
+   /**
+    * Adjusts the limiter to the rate limit headers returned by the Packet API: if there are no remaining requests
+    * in the current window, all the requests are held until the window resets.
+    */
+   public void update(HttpResponse response) {
+      Long remaining = longHeader(response, RATE_LIMIT_REMAINING);
+      Long reset = longHeader(response, RATE_LIMIT_RESET);
+      if (remaining != null && remaining <= 0 && reset != null) {
+         // The reset header is the time, in UTC epoch seconds, when the current window resets
+         pauseFor(TimeUnit.SECONDS.toMillis(reset) - System.currentTimeMillis());
+      }
+   }
+
+   @VisibleForTesting
+   long pausedMillis() {
+      return pausedUntil - System.currentTimeMillis();
+   }
+
+   RateLimiter limiterFor(String operation) {
+      if (operation != null) {
+         RateLimiter limiter = limiters.get(operation);
+         if (limiter != null) {
+            return limiter;
+         }
+         int separator = operation.indexOf(':');
+         if (separator > 0) {
+            limiter = limiters.get(operation.substring(0, separator + 1) + WILDCARD);
+            if (limiter != null) {
+               return limiter;
+            }
+         }
+      }
+      return limiters.get(WILDCARD);
+   }
+
+   private static Long longHeader(HttpResponse response, String header) {
+      String value = response.getFirstHeaderOrNull(header);
+      return value == null ? null : Longs.tryParse(value.trim());
+   }
+
+   /**
+    * Feeds the rate limit headers of every response, including the successful ones, to the {@link ThrottleRequests}.
+    */
+   public static class Interceptor implements MethodInterceptor {
+
+      @Inject
+      private ThrottleRequests throttle;
+
+      @Override
+      public Object invoke(MethodInvocation invocation) throws Throwable {
+         checkNotNull(throttle, "throttle");
+         try {
+            HttpResponse response = (HttpResponse) invocation.proceed();
+            if (response != null) {
+               throttle.update(response);
+            }
+            return response;
+         } catch (HttpResponseException e) {
+            if (e.getResponse() != null) {
+               throttle.update(e.getResponse());
+            }
+            throw e;
+         }
+      }
+   }
+}
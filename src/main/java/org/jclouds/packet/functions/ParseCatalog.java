@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.functions;
+
+import static org.jclouds.http.HttpUtils.releasePayload;
+
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.functions.ParseFirstJsonValueNamed;
+import org.jclouds.json.internal.GsonWrapper;
+import org.jclouds.packet.domain.Facility;
+import org.jclouds.packet.domain.OperatingSystem;
+import org.jclouds.packet.domain.Plan;
+
+import com.google.common.base.Function;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.HttpHeaders;
+import com.google.inject.TypeLiteral;
+
+/**
+ * Parses a catalog listing, reusing the objects parsed from a previous response
+ * with the same <code>ETag</code>. Combined with the
+ * {@link org.jclouds.packet.http.ConditionalRequestCache}, unchanged catalogs
+ * are neither downloaded nor parsed again.
+ */
+public abstract class ParseCatalog<T> implements Function<HttpResponse, List<T>> {
+
+   private final ParseFirstJsonValueNamed<List<T>> parser;
+   private final Cache<String, List<T>> parsedByETag = CacheBuilder.newBuilder().maximumSize(4).build();
+
+   protected ParseCatalog(GsonWrapper json, TypeLiteral<List<T>> type, String name) {
+      this.parser = new ParseFirstJsonValueNamed<List<T>>(json, type, name);
+   }
+
+   @Override
+   public List<T> apply(HttpResponse response) {
+      String etag = response.getFirstHeaderOrNull(HttpHeaders.ETAG);
+      if (etag != null) {
+         List<T> parsed = parsedByETag.getIfPresent(etag);
+         if (parsed != null) {
+            releasePayload(response);
+            return parsed;
+         }
+      }
+      List<T> parsed = parser.apply(response);
+      if (parsed == null) {
+         return null;
+      }
+      // The same list is returned to every caller with the same ETag, so it must not be modifiable
+      List<T> catalog = ImmutableList.copyOf(parsed);
+      if (etag != null) {
+         parsedByETag.put(etag, catalog);
+      }
+      return catalog;
+   }
+
+   @Singleton
+   public static class Plans extends ParseCatalog<Plan> {
+      @Inject
+      Plans(GsonWrapper json) {
+         super(json, new TypeLiteral<List<Plan>>() {
+         }, "plans");
+      }
+   }
+
+   @Singleton
+   public static class Facilities extends ParseCatalog<Facility> {
+      @Inject
+      Facilities(GsonWrapper json) {
+         super(json, new TypeLiteral<List<Facility>>() {
+         }, "facilities");
+      }
+   }
+
+   @Singleton
+   public static class OperatingSystems extends ParseCatalog<OperatingSystem> {
+      @Inject
+      OperatingSystems(GsonWrapper json) {
+         super(json, new TypeLiteral<List<OperatingSystem>>() {
+         }, "operating_systems");
+      }
+   }
+}
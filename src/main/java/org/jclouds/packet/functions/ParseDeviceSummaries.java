@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.functions;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.http.HttpUtils.releasePayload;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.packet.PacketApi;
+import org.jclouds.packet.domain.Device;
+import org.jclouds.packet.domain.DeviceSummary;
+import org.jclouds.packet.domain.IpAddress;
+import org.jclouds.packet.domain.Meta;
+import org.jclouds.packet.domain.PaginatedCollection;
+import org.jclouds.packet.domain.options.ListOptions;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.reflect.TypeToken;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Parses a page of devices into {@link DeviceSummary} objects, reading the
+ * response as a stream and skipping the properties that are not part of the
+ * summary.
+ */
+@Singleton
+public class ParseDeviceSummaries implements Function<HttpResponse, IterableWithMarker<DeviceSummary>> {
+
+   @SuppressWarnings("serial")
+   private static final TypeToken<List<String>> TAGS = new TypeToken<List<String>>() {
+   };
+   @SuppressWarnings("serial")
+   private static final TypeToken<List<IpAddress>> IP_ADDRESSES = new TypeToken<List<IpAddress>>() {
+   };
+
+   private final Gson gson;
+
+   @Inject
+   ParseDeviceSummaries(Gson gson) {
+      this.gson = checkNotNull(gson, "gson cannot be null");
+   }
+
+   @Override
+   public IterableWithMarker<DeviceSummary> apply(HttpResponse response) {
+      checkNotNull(response, "response");
+      if (response.getPayload() == null) {
+         return new DeviceSummaries(null, null);
+      }
+      try {
+         JsonReader reader = new JsonReader(new InputStreamReader(response.getPayload().openStream(), Charsets.UTF_8));
+         try {
+            return read(reader);
+         } finally {
+            reader.close();
+         }
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      } finally {
+         releasePayload(response);
+      }
+   }
+
+   private DeviceSummaries read(JsonReader reader) throws IOException {
+      List<DeviceSummary> summaries = Lists.newArrayList();
+      Meta meta = null;
+      reader.beginObject();
+      while (reader.hasNext()) {
+         String name = reader.nextName();
+         if ("devices".equals(name)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+               summaries.add(readSummary(reader));
+            }
+            reader.endArray();
+         } else if ("meta".equals(name)) {
+            meta = gson.fromJson(reader, Meta.class);
+         } else {
+            reader.skipValue();
+         }
+      }
+      reader.endObject();
+      return new DeviceSummaries(summaries, meta);
+   }
+
+   private DeviceSummary readSummary(JsonReader reader) throws IOException {
+      String id = null;
+      String hostname = null;
+      Device.State state = null;
+      String facilityCode = null;
+      String planSlug = null;
+      List<String> tags = null;
+      List<IpAddress> ipAddresses = null;
+
+      reader.beginObject();
+      while (reader.hasNext()) {
+         String name = reader.nextName();
+         if ("id".equals(name)) {
+            id = nextStringOrNull(reader);
+         } else if ("hostname".equals(name)) {
+            hostname = nextStringOrNull(reader);
+         } else if ("state".equals(name)) {
+            String value = nextStringOrNull(reader);
+            state = value == null ? null : Device.State.fromValue(value);
+         } else if ("facility".equals(name)) {
+            facilityCode = readProperty(reader, "code");
+         } else if ("plan".equals(name)) {
+            planSlug = readProperty(reader, "slug");
+         } else if ("tags".equals(name)) {
+            tags = gson.fromJson(reader, TAGS.getType());
+         } else if ("ip_addresses".equals(name)) {
+            ipAddresses = gson.fromJson(reader, IP_ADDRESSES.getType());
+         } else {
+            reader.skipValue();
+         }
+      }
+      reader.endObject();
+      return DeviceSummary.create(id, hostname, state, facilityCode, planSlug, tags, ipAddresses);
+   }
+
+   private static String nextStringOrNull(JsonReader reader) throws IOException {
+      if (reader.peek() == JsonToken.NULL) {
+         reader.nextNull();
+         return null;
+      }
+      return reader.nextString();
+   }
+
+   /**
+    * Reads a single string property of a nested object, skipping the rest.
+    * Returns <code>null</code> when the related resource is not expanded.
+    */
+   private static String readProperty(JsonReader reader, String property) throws IOException {
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+         reader.skipValue();
+         return null;
+      }
+      String value = null;
+      reader.beginObject();
+      while (reader.hasNext()) {
+         if (property.equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+            value = reader.nextString();
+         } else {
+            reader.skipValue();
+         }
+      }
+      reader.endObject();
+      return value;
+   }
+
+   static final class DeviceSummaries extends PaginatedCollection<DeviceSummary> {
+      DeviceSummaries(List<DeviceSummary> items, Meta meta) {
+         super(items, meta);
+      }
+   }
+
+   public static class ToPagedIterable extends BaseToPagedIterable<DeviceSummary> {
+
+      private final PacketApi api;
+
+      @Inject
+      ToPagedIterable(PacketApi api) {
+         this.api = checkNotNull(api, "api cannot be null");
+      }
+
+      @Override
+      protected IterableWithMarker<DeviceSummary> fetchPageUsingOptions(ListOptions options, Optional<Object> arg0) {
+         return api.deviceApi(arg0.get().toString()).listSummaries(options);
+      }
+   }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.functions;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.beans.ConstructorProperties;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.http.functions.ParseJson;
+import org.jclouds.json.Json;
+import org.jclouds.packet.PacketApi;
+import org.jclouds.packet.domain.Device;
+import org.jclouds.packet.domain.Meta;
+import org.jclouds.packet.domain.PaginatedCollection;
+import org.jclouds.packet.domain.options.ListOptions;
+
+import com.google.common.base.Optional;
+import com.google.inject.TypeLiteral;
+
+/**
+ * Parses a page of devices, keeping the pagination metadata.
+ */
+@Singleton
+public class ParseDevices extends ParseJson<ParseDevices.Devices> {
+
+   @Inject
+   ParseDevices(Json json) {
+      super(json, TypeLiteral.get(Devices.class));
+   }
+
+   static final class Devices extends PaginatedCollection<Device> {
+
+      @ConstructorProperties({ "devices", "meta" })
+      public Devices(List<Device> items, Meta meta) {
+         super(items, meta);
+      }
+   }
+
+   public static class ToPagedIterable extends BaseToPagedIterable<Device> {
+
+      private final PacketApi api;
+
+      @Inject
+      ToPagedIterable(PacketApi api) {
+         this.api = checkNotNull(api, "api cannot be null");
+      }
+
+      @Override
+      protected IterableWithMarker<Device> fetchPageUsingOptions(ListOptions options, Optional<Object> arg0) {
+         return api.deviceApi(arg0.get().toString()).list(options);
+      }
+   }
+}
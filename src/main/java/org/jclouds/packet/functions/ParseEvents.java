@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.functions;
+
+import java.beans.ConstructorProperties;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.http.functions.ParseJson;
+import org.jclouds.json.Json;
+import org.jclouds.packet.domain.Event;
+import org.jclouds.packet.domain.Meta;
+import org.jclouds.packet.domain.PaginatedCollection;
+
+import com.google.inject.TypeLiteral;
+
+/**
+ * Parses a page of events, keeping the pagination metadata.
+ */
+@Singleton
+public class ParseEvents extends ParseJson<ParseEvents.Events> {
+
+   @Inject
+   ParseEvents(Json json) {
+      super(json, TypeLiteral.get(Events.class));
+   }
+
+   static final class Events extends PaginatedCollection<Event> {
+
+      @ConstructorProperties({ "events", "meta" })
+      public Events(List<Event> items, Meta meta) {
+         super(items, meta);
+      }
+   }
+}
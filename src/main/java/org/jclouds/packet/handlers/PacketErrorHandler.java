@@ -18,12 +18,14 @@ package org.jclouds.packet.handlers;
 
 import static org.jclouds.http.HttpUtils.closeClientButKeepContentStream;
 
+import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpErrorHandler;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpResponseException;
+import org.jclouds.packet.http.ConditionalRequestCache;
 import org.jclouds.rest.AuthorizationException;
 import org.jclouds.rest.ResourceNotFoundException;
 
@@ -33,9 +35,20 @@ import org.jclouds.rest.ResourceNotFoundException;
 @Singleton
 public class PacketErrorHandler implements HttpErrorHandler {
 
+   private final ConditionalRequestCache conditionalRequestCache;
+
+   @Inject
+   PacketErrorHandler(ConditionalRequestCache conditionalRequestCache) {
+      this.conditionalRequestCache = conditionalRequestCache;
+   }
+
    public void handleError(HttpCommand command, HttpResponse response) {
       // it is important to always read fully and close streams
       byte[] data = closeClientButKeepContentStream(response);
+      if (response.getStatusCode() == 304 && conditionalRequestCache.hasCachedResponse(command.getCurrentRequest())) {
+         // The cached response is replayed by the ConditionalRequestCache
+         return;
+      }
       String message = data != null ? new String(data) : null;
 
       Exception exception = message != null ? new HttpResponseException(command, response, message)
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.handlers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.http.HttpUtils.closeClientButKeepContentStream;
+import static org.jclouds.packet.config.PacketProperties.RATE_LIMIT_MAX_WAIT;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.date.DateService;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpRetryHandler;
+import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
+import org.jclouds.logging.Logger;
+import org.jclouds.packet.filters.ThrottleRequests;
+
+import com.google.common.net.HttpHeaders;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Retries the requests rejected because the rate limit was exceeded (429) after the time indicated by the
+ * <code>Retry-After</code> header, and feeds the rate limit headers to the shared {@link ThrottleRequests}
+ * limiter. Other client errors are retried with exponential backoff.
+ */
+@Singleton
+public class PacketRateLimitRetryHandler implements HttpRetryHandler {
+
+   public static final int TOO_MANY_REQUESTS = 429;
+
+   // Used when the API does not say when to retry
+   private static final long DEFAULT_WAIT = TimeUnit.SECONDS.toMillis(1);
+
+   @Resource
+   @Named(Constants.LOGGER_HTTP_HEADERS)
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(Constants.PROPERTY_MAX_RETRIES)
+   private int retryCountLimit = 5;
+
+   private final BackoffLimitedRetryHandler backoffHandler;
+   private final ThrottleRequests throttle;
+   private final DateService dateService;
+   private final long maxWait;
+
+   @Inject
+   PacketRateLimitRetryHandler(BackoffLimitedRetryHandler backoffHandler, ThrottleRequests throttle,
+                               DateService dateService, @Named(RATE_LIMIT_MAX_WAIT) long maxWait) {
+      this.backoffHandler = checkNotNull(backoffHandler, "backoffHandler cannot be null");
+      this.throttle = checkNotNull(throttle, "throttle cannot be null");
+      this.dateService = checkNotNull(dateService, "dateService cannot be null");
+      this.maxWait = maxWait;
+   }
+
+   @Override
+   public boolean shouldRetryRequest(HttpCommand command, HttpResponse response) {
+      throttle.update(response);
+      if (response.getStatusCode() != TOO_MANY_REQUESTS) {
+         return backoffHandler.shouldRetryRequest(command, response);
+      }
+
+      // Always close the response so the connection can be reused
+      closeClientButKeepContentStream(response);
+      if (command.incrementFailureCount() > retryCountLimit) {
+         logger.warn("rate limit exceeded: too many retries for %s", command.getCurrentRequest().getRequestLine());
+         return false;
+      }
+
+      long waitMillis = millisToRetry(response);
+      if (waitMillis > maxWait) {
+         logger.warn("rate limit exceeded: %s would have to wait %sms, which is more than the allowed %sms",
+               command.getCurrentRequest().getRequestLine(), waitMillis, maxWait);
+         return false;
+      }
+
+      logger.debug("rate limit exceeded: retrying %s in %sms", command.getCurrentRequest().getRequestLine(), waitMillis);
+      throttle.pauseFor(waitMillis);
+      Uninterruptibles.sleepUninterruptibly(waitMillis, TimeUnit.MILLISECONDS);
+      return true;
+   }
+
+   private long millisToRetry(HttpResponse response) {
+      String retryAfter = response.getFirstHeaderOrNull(HttpHeaders.RETRY_AFTER);
+      if (retryAfter != null) {
+         // The Retry-After header is either a number of seconds or an HTTP date
+         Long seconds = Longs.tryParse(retryAfter.trim());
+         if (seconds != null) {
+            return TimeUnit.SECONDS.toMillis(seconds);
+         }
+         try {
+            Date date = dateService.rfc822DateParse(retryAfter.trim());
+            return Math.max(0, date.getTime() - System.currentTimeMillis());
+         } catch (RuntimeException ex) {
+            logger.warn("could not parse the %s header: %s", HttpHeaders.RETRY_AFTER, retryAfter);
+         }
+      }
+      String reset = response.getFirstHeaderOrNull(ThrottleRequests.RATE_LIMIT_RESET);
+      Long resetSeconds = reset == null ? null : Longs.tryParse(reset.trim());
+      if (resetSeconds != null) {
+         return Math.max(0, TimeUnit.SECONDS.toMillis(resetSeconds) - System.currentTimeMillis());
+      }
+      return DEFAULT_WAIT;
+   }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.http;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.http.HttpUtils.releasePayload;
+import static org.jclouds.packet.config.PacketProperties.CONDITIONAL_REQUEST_OPERATIONS;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.packet.metrics.PacketMetrics;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.net.HttpHeaders;
+
+/**
+ * Caches the responses of the read-only catalog operations together with their
+ * <code>ETag</code> and <code>Last-Modified</code> validators.
+ * <p>
+ * Requests for a cached resource are sent as conditional requests and, when
+ * the server answers <code>304 Not Modified</code>, the cached response is
+ * replayed. The operations to cache are configured with
+ * {@link org.jclouds.packet.config.PacketProperties#CONDITIONAL_REQUEST_OPERATIONS}.
+ */
+@Singleton
+public class ConditionalRequestCache {
+
+   private final Set<String> operations;
+   private final ConcurrentMap<String, Entry> entries = Maps.newConcurrentMap();
+
+   @Inject
+   ConditionalRequestCache(@Named(CONDITIONAL_REQUEST_OPERATIONS) String operations) {
+      this.operations = ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(operations));
+   }
+
+   /**
+    * Returns true if the request is a conditional request and this cache holds the response to replay when the
+    * server answers <code>304 Not Modified</code>.
+    */
+   public boolean hasCachedResponse(HttpRequest request) {
+      boolean conditional = request.getFirstHeaderOrNull(HttpHeaders.IF_NONE_MATCH) != null
+            || request.getFirstHeaderOrNull(HttpHeaders.IF_MODIFIED_SINCE) != null;
+      return conditional && entries.containsKey(request.getEndpoint().toString());
+   }
+
+   public void invalidate() {
+      entries.clear();
+   }
+
+   HttpResponse invoke(HttpCommand command, MethodInvocation invocation) throws Throwable {
+      HttpRequest request = command.getCurrentRequest();
+      if (!"GET".equals(request.getMethod()) || !operations.contains(PacketMetrics.operationOf(request))) {
+         return (HttpResponse) invocation.proceed();
+      }
+
+      String key = request.getEndpoint().toString();
+      Entry cached = entries.get(key);
+      if (cached != null) {
+         HttpRequest.Builder<?> conditional = request.toBuilder();
+         if (cached.etag != null) {
+            conditional.replaceHeader(HttpHeaders.IF_NONE_MATCH, cached.etag);
+         }
+         if (cached.lastModified != null) {
+            conditional.replaceHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified);
+         }
+         command.setCurrentRequest(conditional.build());
+      }
+
+      HttpResponse response = (HttpResponse) invocation.proceed();
+      if (response.getStatusCode() == 304 && cached != null) {
+         return cached.replay();
+      }
+      if (response.getStatusCode() == 200 && response.getPayload() != null) {
+         String etag = response.getFirstHeaderOrNull(HttpHeaders.ETAG);
+         String lastModified = response.getFirstHeaderOrNull(HttpHeaders.LAST_MODIFIED);
+         if (etag != null || lastModified != null) {
+            Entry entry = new Entry(response, etag, lastModified, read(response));
+            entries.put(key, entry);
+            return entry.replay();
+         }
+      }
+      return response;
+   }
+
+   private static byte[] read(HttpResponse response) throws IOException {
+      InputStream in = response.getPayload().openStream();
+      try {
+         return ByteStreams.toByteArray(in);
+      } finally {
+         Closeables.closeQuietly(in);
+         releasePayload(response);
+      }
+   }
+
+   private static final class Entry {
+      private final HttpResponse response;
+      private final String etag;
+      private final String lastModified;
+      private final byte[] body;
+      private final String contentType;
+
+      Entry(HttpResponse response, String etag, String lastModified, byte[] body) {
+         this.response = response;
+         this.etag = etag;
+         this.lastModified = lastModified;
+         this.body = body;
+         this.contentType = response.getPayload().getContentMetadata().getContentType();
+      }
+
+      HttpResponse replay() {
+         Payload payload = Payloads.newByteArrayPayload(body);
+         payload.getContentMetadata().setContentType(contentType);
+         return response.toBuilder().payload(payload).build();
+      }
+   }
+
+   /**
+    * Routes the calls to {@link org.jclouds.http.HttpCommandExecutorService#invoke(HttpCommand)} through the cache.
+    */
+   public static class Interceptor implements MethodInterceptor {
+
+      @Inject
+      private ConditionalRequestCache cache;
+
+      @Override
+      public Object invoke(MethodInvocation invocation) throws Throwable {
+         HttpCommand command = (HttpCommand) invocation.getArguments()[0];
+         return checkNotNull(cache, "cache").invoke(command, invocation);
+      }
+   }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies, in microseconds, with logarithmic buckets.
+ * <p>
+ * Values below {@link #SUB_BUCKETS} are counted exactly; above that, each power
+ * of two is split in {@link #SUB_BUCKETS} buckets, so the reported percentiles
+ * are within 12.5% of the recorded values.
+ */
+final class LatencyHistogram {
+
+   private static final int SUB_BUCKET_BITS = 3;
+   private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+   // Up to 2^40 microseconds, which is about 12 days
+   private static final int MAX_EXPONENT = 40;
+   private static final int BUCKETS = bucket((1L << MAX_EXPONENT) - 1) + 1;
+
+   private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+   void record(long micros) {
+      counts.incrementAndGet(bucket(Math.max(0, Math.min(micros, (1L << MAX_EXPONENT) - 1))));
+   }
+
+   /**
+    * Returns the upper bound of the bucket holding the given percentile, in
+    * microseconds, or 0 if nothing has been recorded.
+    */
+   long percentile(double percentile) {
+      long[] snapshot = new long[BUCKETS];
+      long total = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         snapshot[i] = counts.get(i);
+         total += snapshot[i];
+      }
+      if (total == 0) {
+         return 0;
+      }
+      long rank = (long) Math.ceil(percentile / 100 * total);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         seen += snapshot[i];
+         if (seen >= rank && snapshot[i] > 0) {
+            return upperBound(i);
+         }
+      }
+      return upperBound(BUCKETS - 1);
+   }
+
+   void reset() {
+      for (int i = 0; i < BUCKETS; i++) {
+         counts.set(i, 0);
+      }
+   }
+
+   static int bucket(long micros) {
+      if (micros < SUB_BUCKETS) {
+         return (int) micros;
+      }
+      int exponent = 63 - Long.numberOfLeadingZeros(micros);
+      int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+      return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+   }
+
+   static long upperBound(int bucket) {
+      if (bucket < SUB_BUCKETS) {
+         return bucket;
+      }
+      int shift = bucket / SUB_BUCKETS - 1;
+      long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+      return lower + (1L << shift) - 1;
+   }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.metrics;
+
+import java.lang.reflect.Method;
+
+import javax.inject.Inject;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+
+import com.google.inject.matcher.AbstractMatcher;
+import com.google.inject.matcher.Matcher;
+
+/**
+ * Records the {@link PacketMetrics} of each call to
+ * {@link org.jclouds.http.HttpCommandExecutorService#invoke(HttpCommand)}.
+ * <p>
+ * The executor is the only place that sees both the successful and the failed
+ * responses, and it is bound by the HTTP driver module, so it is intercepted
+ * rather than replaced. The recorded latency includes the retries.
+ */
+public class MeterHttpCommands implements MethodInterceptor {
+
+   /**
+    * Matches the <code>invoke(HttpCommand)</code> method.
+    */
+   public static final Matcher<Method> INVOKE = new AbstractMatcher<Method>() {
+      @Override
+      public boolean matches(Method method) {
+         return method.getName().equals("invoke") && method.getParameterTypes().length == 1
+               && method.getParameterTypes()[0] == HttpCommand.class && !method.isSynthetic();
+      }
+   };
+
+   @Inject
+   private PacketMetrics metrics;
+
+   @Override
+   public Object invoke(MethodInvocation invocation) throws Throwable {
+      if (metrics == null || !metrics.isEnabled()) {
+         return invocation.proceed();
+      }
+      HttpCommand command = (HttpCommand) invocation.getArguments()[0];
+      String operation = PacketMetrics.operationOf(command.getCurrentRequest());
+      long start = System.nanoTime();
+      try {
+         HttpResponse response = (HttpResponse) invocation.proceed();
+         metrics.record(operation, response == null ? 0 : response.getStatusCode(), System.nanoTime() - start,
+               contentLength(response), command.getFailureCount());
+         return response;
+      } catch (HttpResponseException e) {
+         metrics.record(operation, e.getResponse() == null ? 0 : e.getResponse().getStatusCode(),
+               System.nanoTime() - start, contentLength(e.getResponse()), command.getFailureCount());
+         throw e;
+      } catch (Throwable e) {
+         metrics.record(operation, 0, System.nanoTime() - start, 0, command.getFailureCount());
+         throw e;
+      }
+   }
+
+   private static long contentLength(HttpResponse response) {
+      if (response == null || response.getPayload() == null) {
+         return 0;
+      }
+      Long length = response.getPayload().getContentMetadata().getContentLength();
+      return length == null ? 0 : length;
+   }
+}
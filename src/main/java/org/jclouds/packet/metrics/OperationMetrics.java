@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.metrics;
+
+import java.util.Map;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * A snapshot of the metrics recorded for an API operation, such as
+ * <code>device:list</code>. Latencies are in milliseconds.
+ */
+@AutoValue
+public abstract class OperationMetrics {
+
+   public abstract String operation();
+   public abstract long requests();
+   public abstract long errors();
+   public abstract long retries();
+   public abstract long responseBytes();
+   public abstract Map<Integer, Long> statusCodes();
+   public abstract double meanLatency();
+   public abstract double p50Latency();
+   public abstract double p90Latency();
+   public abstract double p99Latency();
+   public abstract double maxLatency();
+
+   public static OperationMetrics create(String operation, long requests, long errors, long retries,
+         long responseBytes, Map<Integer, Long> statusCodes, double meanLatency, double p50Latency,
+         double p90Latency, double p99Latency, double maxLatency) {
+      return new AutoValue_OperationMetrics(operation, requests, errors, retries, responseBytes,
+            ImmutableMap.copyOf(statusCodes), meanLatency, p50Latency, p90Latency, p99Latency, maxLatency);
+   }
+
+   OperationMetrics() {
+   }
+}
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.metrics;
+
+import static org.jclouds.packet.config.PacketProperties.METRICS_ENABLED;
+import static org.jclouds.packet.config.PacketProperties.METRICS_JMX_ENABLED;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.lifecycle.Closer;
+import org.jclouds.logging.Logger;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Latency, status code, retry and response size metrics for each operation of
+ * the Packet API, keyed by the <code>@Named</code> id of the API method, such
+ * as <code>device:create</code>.
+ * <p>
+ * Recording only updates a few atomic counters, so the metrics can be left on
+ * in production. They can also be exposed over JMX as
+ * <code>org.jclouds.packet:type=PacketMetrics</code> with
+ * {@link org.jclouds.packet.config.PacketProperties#METRICS_JMX_ENABLED}. The
+ * MBean is unregistered when the context is closed.
+ */
+@Singleton
+public class PacketMetrics implements PacketMetricsMBean, Closeable {
+
+   /**
+    * The operation used for requests that do not come from an annotated API method.
+    */
+   public static final String UNKNOWN_OPERATION = "unknown";
+
+   /**
+    * The registration of the SSH keys of a group of nodes, which the device creation requests wait for.
+    */
+   public static final String GROUP_SSH_KEY_REGISTRATION = "group:ssh-key-registration";
+
+   /**
+    * The deletion of the SSH keys auto-generated for a group of nodes.
+    */
+   public static final String GROUP_SSH_KEY_CLEANUP = "group:ssh-key-cleanup";
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final boolean enabled;
+   private final ConcurrentMap<String, Stats> stats = Maps.newConcurrentMap();
+   private final ObjectName objectName;
+
+   @Inject
+   PacketMetrics(@Named(METRICS_ENABLED) boolean enabled, @Named(METRICS_JMX_ENABLED) boolean jmxEnabled,
+         Closer closer) {
+      this.enabled = enabled;
+      this.objectName = enabled && jmxEnabled ? register() : null;
+      if (objectName != null) {
+         closer.addToClose(this);
+      }
+   }
+
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   /**
+    * Records a completed call. Status code 0 means that no response was received.
+    */
+   public void record(String operation, int statusCode, long nanos, long responseBytes, int retries) {
+      if (enabled) {
+         stats(operation).record(statusCode, nanos, responseBytes, retries);
+      }
+   }
+
+   /**
+    * Records the duration of an operation that is made of several API calls, such as
+    * {@link #GROUP_SSH_KEY_REGISTRATION}. These operations have no status codes.
+    */
+   public void recordDuration(String operation, long nanos, boolean failed) {
+      if (enabled) {
+         stats(operation).recordDuration(nanos, failed);
+      }
+   }
+
+   private Stats stats(String operation) {
+      Stats operationStats = stats.get(operation);
+      if (operationStats == null) {
+         Stats created = new Stats();
+         operationStats = stats.putIfAbsent(operation, created);
+         if (operationStats == null) {
+            operationStats = created;
+         }
+      }
+      return operationStats;
+   }
+
+   /**
+    * Returns the metrics of the given operation, or <code>null</code> if it has not been called.
+    */
+   @Nullable
+   public OperationMetrics get(String operation) {
+      Stats operationStats = stats.get(operation);
+      return operationStats == null ? null : operationStats.snapshot(operation);
+   }
+
+   /**
+    * Returns the metrics of all the operations that have been called, sorted by operation.
+    */
+   public Map<String, OperationMetrics> snapshot() {
+      ImmutableSortedMap.Builder<String, OperationMetrics> builder = ImmutableSortedMap.naturalOrder();
+      for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+         builder.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+      }
+      return builder.build();
+   }
+
+   @Override
+   public void reset() {
+      stats.clear();
+   }
+
+   @Override
+   public String[] getOperations() {
+      return snapshot().keySet().toArray(new String[0]);
+   }
+
+   @Override
+   public long getRequests(String operation) {
+      OperationMetrics metrics = get(operation);
+      return metrics == null ? 0 : metrics.requests();
+   }
+
+   @Override
+   public long getErrors(String operation) {
+      OperationMetrics metrics = get(operation);
+      return metrics == null ? 0 : metrics.errors();
+   }
+
+   @Override
+   public long getRetries(String operation) {
+      OperationMetrics metrics = get(operation);
+      return metrics == null ? 0 : metrics.retries();
+   }
+
+   @Override
+   public long getResponseBytes(String operation) {
+      OperationMetrics metrics = get(operation);
+      return metrics == null ? 0 : metrics.responseBytes();
+   }
+
+   @Override
+   public double getLatency(String operation, double percentile) {
+      Stats operationStats = stats.get(operation);
+      return operationStats == null ? 0 : toMillis(operationStats.latencies.percentile(percentile));
+   }
+
+   @Override
+   public String getSummary() {
+      return Joiner.on('\n').join(snapshot().values());
+   }
+
+   @Override
+   public void close() {
+      if (objectName != null) {
+         try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+         } catch (JMException e) {
+            logger.warn(e, "Could not unregister %s", objectName);
+         }
+      }
+   }
+
+   /**
+    * Returns the operation of the given request: the <code>@Named</code> id of the API method that built it.
+    */
+   public static String operationOf(HttpRequest request) {
+      if (request instanceof GeneratedHttpRequest) {
+         Named name = ((GeneratedHttpRequest) request).getInvocation().getInvokable().getAnnotation(Named.class);
+         if (name != null) {
+            return name.value();
+         }
+      }
+      return UNKNOWN_OPERATION;
+   }
+
+   private ObjectName register() {
+      try {
+         // Several contexts can be open in the same JVM
+         ObjectName name = new ObjectName("org.jclouds.packet:type=PacketMetrics,id="
+               + Integer.toHexString(System.identityHashCode(this)));
+         MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+         server.registerMBean(this, name);
+         return name;
+      } catch (JMException e) {
+         logger.warn(e, "Could not register the Packet metrics MBean");
+         return null;
+      }
+   }
+
+   private static double toMillis(long micros) {
+      return micros / 1000d;
+   }
+
+   private static final class Stats {
+      private final AtomicLong requests = new AtomicLong();
+      private final AtomicLong errors = new AtomicLong();
+      private final AtomicLong retries = new AtomicLong();
+      private final AtomicLong responseBytes = new AtomicLong();
+      private final AtomicLong totalMicros = new AtomicLong();
+      private final AtomicLong maxMicros = new AtomicLong();
+      private final ConcurrentMap<Integer, AtomicLong> statusCodes = Maps.newConcurrentMap();
+      private final LatencyHistogram latencies = new LatencyHistogram();
+
+      void record(int statusCode, long nanos, long bytes, int retryCount) {
+         recordDuration(nanos, statusCode == 0 || statusCode >= 400);
+         if (retryCount > 0) {
+            retries.addAndGet(retryCount);
+         }
+         if (bytes > 0) {
+            responseBytes.addAndGet(bytes);
+         }
+
+         AtomicLong count = statusCodes.get(statusCode);
+         if (count == null) {
+            AtomicLong created = new AtomicLong();
+            count = statusCodes.putIfAbsent(statusCode, created);
+            if (count == null) {
+               count = created;
+            }
+         }
+         count.incrementAndGet();
+      }
+
+      void recordDuration(long nanos, boolean failed) {
+         long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+         requests.incrementAndGet();
+         if (failed) {
+            errors.incrementAndGet();
+         }
+         totalMicros.addAndGet(micros);
+         long max = maxMicros.get();
+         while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+         }
+         latencies.record(micros);
+      }
+
+      OperationMetrics snapshot(String operation) {
+         ImmutableMap.Builder<Integer, Long> codes = ImmutableMap.builder();
+         for (Map.Entry<Integer, AtomicLong> entry : statusCodes.entrySet()) {
+            codes.put(entry.getKey(), entry.getValue().get());
+         }
+         long count = requests.get();
+         return OperationMetrics.create(operation, count, errors.get(), retries.get(), responseBytes.get(),
+               codes.build(), count == 0 ? 0 : toMillis(totalMicros.get()) / count,
+               toMillis(latencies.percentile(50)), toMillis(latencies.percentile(90)),
+               toMillis(latencies.percentile(99)), toMillis(maxMicros.get()));
+      }
+   }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.util.Set;
+
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.packet.compute.functions.PlanToHardware;
+import org.jclouds.packet.compute.internal.BasePacketApiMockTest;
+import org.jclouds.packet.domain.Plan;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.FluentIterable;
+
+@Test(groups = "unit", testName = "HardwareByPriceMockTest", singleThreaded = true)
+public class HardwareByPriceMockTest extends BasePacketApiMockTest {
+
+   public void testCheapestHardwareMeetingTheConstraints() {
+      HardwareByPrice prices = new HardwareByPrice(Suppliers.<Set<? extends Hardware>> ofInstance(baremetal()));
+
+      assertEquals(prices.cheapest(1, 16384, 0).get().getId(), "baremetal_1");
+      assertEquals(prices.cheapest(2, 0, 0).get().getId(), "baremetal_2a");
+      assertEquals(prices.cheapest(0, 0, 400).get().getId(), "baremetal_2a");
+      assertFalse(prices.cheapest(64, 0, 0).isPresent());
+   }
+
+   public void testCheapestHardwareByCost() {
+      HardwareByPrice prices = new HardwareByPrice(Suppliers.<Set<? extends Hardware>> ofInstance(baremetal()));
+
+      assertEquals(prices.cheapest(HardwareByPrice.Cost.HOUR, 0, 0, 0).get().getId(), "baremetal_0");
+      assertEquals(prices.cheapest(HardwareByPrice.Cost.HOUR_PER_CORE, 2, 0, 0).get().getId(), "baremetal_2a");
+      assertEquals(prices.cheapest(HardwareByPrice.Cost.HOUR_PER_GB_RAM, 0, 0, 0).get().getId(), "baremetal_2a");
+   }
+
+   public void testPriceIsExposedInTheHardware() {
+      Hardware hardware = baremetal().iterator().next();
+      assertEquals(HardwareByPrice.hourlyPrice(hardware).get(), 0.05);
+   }
+
+   private Set<Hardware> baremetal() {
+      server.enqueue(jsonResponse("/plans.json"));
+      return FluentIterable.from(api.planApi().list()).filter(new Predicate<Plan>() {
+         @Override
+         public boolean apply(Plan input) {
+            return input.line().equals("baremetal");
+         }
+      }).transform(new PlanToHardware()).toSet();
+   }
+}
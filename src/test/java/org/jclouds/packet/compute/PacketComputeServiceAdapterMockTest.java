@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute;
+
+import static org.jclouds.packet.config.PacketProperties.DEVICE_STATE_POLLER_EVENTS_ENABLED;
+import static org.jclouds.packet.config.PacketProperties.DEVICE_STATE_POLLER_PERIOD;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.util.Properties;
+
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.packet.compute.internal.BasePacketApiMockTest;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(groups = "unit", testName = "PacketComputeServiceAdapterMockTest", singleThreaded = true)
+public class PacketComputeServiceAdapterMockTest extends BasePacketApiMockTest {
+
+   private static final String FAILING_DEVICE_ID = "a4b2bbf1-8c3e-4c7b-a1a8-7b3c4e14e2a1";
+
+   @Override
+   protected Properties overrides() {
+      Properties properties = super.overrides();
+      properties.put(DEVICE_STATE_POLLER_PERIOD, "100");
+      properties.put(DEVICE_STATE_POLLER_EVENTS_ENABLED, "false");
+      return properties;
+   }
+
+   public void testListNodesByIdsPropagatesTheFailedLookup() {
+      server.setDispatcher(new Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) {
+            return request.getPath().endsWith(FAILING_DEVICE_ID) ? response500() : jsonResponse("/device.json");
+         }
+      });
+
+      PacketComputeServiceAdapter adapter = injector.getInstance(PacketComputeServiceAdapter.class);
+      try {
+         adapter.listNodesByIds(ImmutableList.of("device-1", FAILING_DEVICE_ID, "device-3"));
+         fail("The failed lookup should have been propagated");
+      } catch (HttpResponseException expected) {
+         // No more lookups are started once one of them fails
+         assertEquals(server.getRequestCount(), 2);
+      }
+   }
+
+   public void testDestroyNodesDestroysTheRemainingDevicesIfOneFails() {
+      server.setDispatcher(new Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) {
+            if (request.getMethod().equals("DELETE")) {
+               return request.getPath().endsWith(FAILING_DEVICE_ID) ? response500() : response204();
+            }
+            return new MockResponse().addHeader("Content-Type", "application/json")
+                  .setBody("{\"devices\":[],\"meta\":{\"total\":0}}");
+         }
+      });
+
+      PacketComputeServiceAdapter adapter = injector.getInstance(PacketComputeServiceAdapter.class);
+      assertEquals(adapter.destroyNodes(ImmutableList.of("device-1", FAILING_DEVICE_ID, "device-3")),
+            ImmutableSet.of("device-1", "device-3"));
+   }
+}
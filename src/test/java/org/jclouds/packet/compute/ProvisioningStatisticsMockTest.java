@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import org.jclouds.packet.compute.internal.BasePacketApiMockTest;
+import org.jclouds.packet.compute.internal.ProvisioningTimes;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Iterables;
+
+@Test(groups = "unit", testName = "ProvisioningStatisticsMockTest", singleThreaded = true)
+public class ProvisioningStatisticsMockTest extends BasePacketApiMockTest {
+
+   public void testSummariesAreBuiltFromTheRecordedTimes() {
+      ProvisioningTimes times = injector.getInstance(ProvisioningTimes.class);
+      ProvisioningStatistics stats = injector.getInstance(ProvisioningStatistics.class);
+      assertFalse(stats.summary("c1.small.x86", "ewr1", null).isPresent());
+
+      for (int i = 0; i < 10; i++) {
+         times.completed(times.start("device-" + i, "c1.small.x86", "ewr1", "ubuntu_16_04"));
+      }
+
+      ProvisioningStatistics.Summary summary = Iterables.getOnlyElement(stats.summaries());
+      assertEquals(summary.plan(), "c1.small.x86");
+      assertEquals(summary.facility(), "ewr1");
+      assertEquals(summary.operatingSystem(), "ubuntu_16_04");
+      assertEquals(summary.count(), 10);
+      assertEquals(stats.summary("c1.small.x86", "ewr1", null).get().count(), 10);
+      assertFalse(stats.etaMillis("device-0").isPresent());
+   }
+}
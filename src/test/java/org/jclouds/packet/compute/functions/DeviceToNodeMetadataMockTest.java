@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.functions;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.json.Json;
+import org.jclouds.packet.compute.HardwareByPrice;
+import org.jclouds.packet.compute.internal.BasePacketApiMockTest;
+import org.jclouds.packet.domain.Device;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "DeviceToNodeMetadataMockTest", singleThreaded = true)
+public class DeviceToNodeMetadataMockTest extends BasePacketApiMockTest {
+
+   public void testConversionsAreSharedUntilTheSourceChanges() {
+      DeviceToNodeMetadata toNodeMetadata = injector.getInstance(DeviceToNodeMetadata.class);
+      String json = stringFromResource("/device.json");
+
+      NodeMetadata first = toNodeMetadata.apply(device(json));
+      NodeMetadata second = toNodeMetadata.apply(device(json));
+      assertSame(second.getHardware(), first.getHardware());
+      assertSame(second.getLocation(), first.getLocation());
+      assertSame(second.getOperatingSystem(), first.getOperatingSystem());
+
+      NodeMetadata repriced = toNodeMetadata.apply(device(json.replace("\"hour\": 0.05", "\"hour\": 0.07")));
+      Hardware hardware = repriced.getHardware();
+      assertNotSame(hardware, first.getHardware());
+      assertEquals(HardwareByPrice.hourlyPrice(hardware).get(), 0.07);
+      assertSame(repriced.getLocation(), first.getLocation());
+   }
+
+   private Device device(String json) {
+      return injector.getInstance(Json.class).fromJson(json, Device.class);
+   }
+}
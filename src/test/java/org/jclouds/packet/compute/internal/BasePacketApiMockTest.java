@@ -42,6 +42,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Resources;
 import com.google.common.reflect.TypeToken;
 import com.google.gson.JsonParser;
+import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
@@ -52,10 +53,9 @@ public class BasePacketApiMockTest {
    private static final String X_AUTHORIZATION_TOKEN = "c5401990f0c24135e8d6b5d260603fc71696d4738da9aa04a720229a01a2521d";
    private static final String DEFAULT_ENDPOINT = new PacketProviderMetadata().getEndpoint();
    
-   private final Set<Module> modules = ImmutableSet.<Module> of(new ExecutorServiceModule(sameThreadExecutor()));
-   
    protected MockWebServer server;
    protected PacketApi api;
+   protected Injector injector;
    private Json json;
    
    // So that we can ignore formatting.
@@ -66,12 +66,13 @@ public class BasePacketApiMockTest {
       server = new MockWebServer();
       server.play();
       ApiContext<PacketApi> ctx = ContextBuilder.newBuilder("packet")
-            .credentials("", X_AUTHORIZATION_TOKEN)
+            .credentials("projectId12345", X_AUTHORIZATION_TOKEN)
             .endpoint(url(""))
-            .modules(modules)
+            .modules(modules())
             .overrides(overrides())
             .build();
-      json = ctx.utils().injector().getInstance(Json.class);
+      injector = ctx.utils().injector();
+      json = injector.getInstance(Json.class);
       api = ctx.getApi();
    }
 
@@ -81,6 +82,10 @@ public class BasePacketApiMockTest {
       api.close();
    }
    
+   protected Set<Module> modules() {
+      return ImmutableSet.<Module> of(new ExecutorServiceModule(sameThreadExecutor()));
+   }
+
    protected Properties overrides() {
       Properties properties = new Properties();
       properties.put(PROPERTY_MAX_RETRIES, "0"); // Do not retry
@@ -103,6 +108,10 @@ public class BasePacketApiMockTest {
       return new MockResponse().setStatus("HTTP/1.1 204 No Content");
    }
 
+   protected MockResponse response500() {
+      return new MockResponse().setStatus("HTTP/1.1 500 Internal Server Error");
+   }
+
    protected String stringFromResource(String resourceName) {
       try {
          return Resources.toString(getClass().getResource(resourceName), Charsets.UTF_8)
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "CapacityCacheMockTest", singleThreaded = true)
+public class CapacityCacheMockTest extends BasePacketApiMockTest {
+
+   public void testAllLookupsAreServedFromOneRequest() throws InterruptedException {
+      server.enqueue(jsonResponse("/capacity.json"));
+
+      CapacityCache capacity = new CapacityCache(api, 60000);
+
+      assertTrue(capacity.isAvailable("ewr1", "baremetal_0"));
+      assertFalse(capacity.isAvailable("ewr1", "baremetal_1"));
+      assertTrue(capacity.isAvailable("sjc1", "baremetal_1"));
+      assertEquals(capacity.get("sjc1", "baremetal_1").get().level(), "limited");
+
+      assertEquals(server.getRequestCount(), 1);
+      assertSent(server, "GET", "/capacity");
+   }
+
+   public void testUnknownCapacityIsAvailable() {
+      server.enqueue(response500());
+      server.enqueue(jsonResponse("/capacity.json"));
+
+      CapacityCache capacity = new CapacityCache(api, 60000);
+
+      assertTrue(capacity.isAvailable("ewr1", "baremetal_1"));
+      // Errors are not cached
+      assertFalse(capacity.isAvailable("ewr1", "baremetal_1"));
+
+      assertTrue(capacity.isAvailable("ams1", "baremetal_0"));
+      assertFalse(capacity.get("ewr1", "baremetal_3").isPresent());
+      assertEquals(server.getRequestCount(), 2);
+   }
+}
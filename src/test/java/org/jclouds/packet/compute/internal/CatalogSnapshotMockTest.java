@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.jclouds.json.Json;
+import org.jclouds.packet.domain.Facility;
+import org.jclouds.packet.domain.OperatingSystem;
+import org.jclouds.packet.domain.Plan;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.io.Files;
+
+@Test(groups = "unit", testName = "CatalogSnapshotMockTest", singleThreaded = true)
+public class CatalogSnapshotMockTest extends BasePacketApiMockTest {
+
+   private File directory;
+
+   @BeforeMethod
+   public void createDirectory() {
+      directory = Files.createTempDir();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void deleteDirectory() throws IOException {
+      for (File file : directory.listFiles()) {
+         file.delete();
+      }
+      directory.delete();
+   }
+
+   public void testSnapshotIsWrittenAndServedOnce() throws InterruptedException {
+      enqueueCatalogs();
+
+      CatalogSnapshot first = snapshot(directory, 60000);
+      assertNull(first.plans());
+      assertEquals(server.getRequestCount(), 3);
+      assertEquals(directory.listFiles().length, 1);
+
+      enqueueCatalogs();
+      List<Plan> plans = api.planApi().list();
+      List<Facility> facilities = api.facilityApi().list();
+      List<OperatingSystem> operatingSystems = api.operatingSystemApi().list();
+      int requests = server.getRequestCount();
+
+      CatalogSnapshot second = snapshot(directory, 60000);
+      enqueueCatalogs(); // the background refresh of the second snapshot
+      List<Plan> seededPlans = second.plans();
+      assertNotNull(seededPlans);
+      assertEquals(seededPlans.size(), plans.size());
+      assertEquals(seededPlans.get(0).id(), plans.get(0).id());
+      assertEquals(second.facilities(), facilities);
+      assertEquals(second.operatingSystems(), operatingSystems);
+      assertEquals(server.getRequestCount(), requests + 3);
+
+      // Each catalog is served from the snapshot only once
+      assertNull(second.plans());
+      assertNull(second.facilities());
+      assertNull(second.operatingSystems());
+   }
+
+   public void testExpiredSnapshotIsIgnored() throws InterruptedException {
+      enqueueCatalogs();
+      snapshot(directory, 60000).refresh();
+
+      enqueueCatalogs();
+      assertNull(snapshot(directory, -1).plans());
+   }
+
+   public void testDisabledSnapshot() {
+      CatalogSnapshot snapshot = snapshot(null, 60000);
+      assertFalse(snapshot.isEnabled());
+      assertNull(snapshot.plans());
+      assertNull(snapshot.facilities());
+      assertNull(snapshot.operatingSystems());
+      assertEquals(server.getRequestCount(), 0);
+   }
+
+   public void testOperatingSystemCatalogIsSeededFromTheSnapshot() {
+      enqueueCatalogs();
+      snapshot(directory, 60000).refresh();
+      int requests = server.getRequestCount();
+
+      enqueueCatalogs();
+      OperatingSystemCatalog catalog = new OperatingSystemCatalog(api, 60000, new FakeTicker(),
+            snapshot(directory, 60000));
+      assertNotNull(catalog.get("centos_7"));
+      // Only the background refresh of the snapshot hits the API
+      assertEquals(server.getRequestCount(), requests + 3);
+   }
+
+   private CatalogSnapshot snapshot(File dir, long maxAge) {
+      return new CatalogSnapshot(api, injector.getInstance(Json.class), dir, url(""), maxAge,
+            sameThreadExecutor());
+   }
+
+   private void enqueueCatalogs() {
+      server.enqueue(jsonResponse("/plans.json"));
+      server.enqueue(jsonResponse("/facilities.json"));
+      server.enqueue(jsonResponse("/operatingSystems.json"));
+   }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static com.google.common.collect.Iterables.size;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.packet.domain.Device;
+import org.testng.annotations.Test;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+@Test(groups = "unit", testName = "DeviceInventoryCacheMockTest", singleThreaded = true)
+public class DeviceInventoryCacheMockTest extends BasePacketApiMockTest {
+
+   private static final String DEVICE_ID = "98e22032-579e-4c04-bb12-05cc6a3864c8";
+
+   private final FakeTicker ticker = new FakeTicker();
+
+   public void testDisabledCacheGoesToTheApi() throws InterruptedException {
+      server.enqueue(jsonResponse("/devices.json"));
+      server.enqueue(jsonResponse("/devices.json"));
+
+      DeviceInventoryCache cache = new DeviceInventoryCache(api, false, 1000, 5000, 100, sameThreadExecutor(), ticker);
+
+      assertEquals(size(cache.list("projectId12345")), 1);
+      assertEquals(size(cache.list("projectId12345")), 1);
+
+      assertEquals(server.getRequestCount(), 2);
+      assertEquals(cache.stats().requestCount(), 0);
+   }
+
+   public void testInventoryIsCachedUntilTheTtlExpires() throws InterruptedException {
+      server.enqueue(jsonResponse("/devices.json"));
+      server.enqueue(jsonResponse("/devices.json"));
+
+      DeviceInventoryCache cache = new DeviceInventoryCache(api, true, 1000, 5000, 100, sameThreadExecutor(), ticker);
+
+      assertEquals(size(cache.list("projectId12345")), 1);
+      assertNotNull(cache.get("projectId12345", DEVICE_ID));
+      assertEquals(server.getRequestCount(), 1);
+      assertSent(server, "GET", "/projects/projectId12345/devices?per_page=100");
+
+      ticker.advance(1001, TimeUnit.MILLISECONDS);
+      assertEquals(size(cache.list("projectId12345")), 1);
+      assertEquals(server.getRequestCount(), 2);
+
+      assertEquals(cache.stats().missCount(), 1);
+      assertEquals(cache.stats().hitCount(), 2);
+   }
+
+   public void testStaleInventoryIsServedIfTheRefreshFails() throws InterruptedException {
+      server.enqueue(jsonResponse("/devices.json"));
+      server.enqueue(response500());
+
+      DeviceInventoryCache cache = new DeviceInventoryCache(api, true, 1000, 5000, 100, sameThreadExecutor(), ticker);
+
+      assertEquals(size(cache.list("projectId12345")), 1);
+      ticker.advance(1001, TimeUnit.MILLISECONDS);
+      assertEquals(size(cache.list("projectId12345")), 1);
+      assertEquals(server.getRequestCount(), 2);
+   }
+
+   public void testRefreshDoesNotBlockTheCaller() throws Exception {
+      server.enqueue(jsonResponse("/devices.json"));
+      server.enqueue(jsonResponse("/devices.json"));
+
+      ListeningExecutorService executor = listeningDecorator(Executors.newSingleThreadExecutor());
+      final CountDownLatch busy = new CountDownLatch(1);
+      try {
+         DeviceInventoryCache cache = new DeviceInventoryCache(api, true, 1000, 5000, 100, executor, ticker);
+         assertEquals(size(cache.list("projectId12345")), 1);
+
+         // Keep the executor busy so the refresh cannot run until the latch is released
+         executor.submit(new Runnable() {
+            @Override
+            public void run() {
+               try {
+                  busy.await();
+               } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+               }
+            }
+         });
+
+         ticker.advance(1001, TimeUnit.MILLISECONDS);
+         assertEquals(size(cache.list("projectId12345")), 1);
+         assertEquals(server.getRequestCount(), 1);
+
+         busy.countDown();
+         executor.shutdown();
+         executor.awaitTermination(10, TimeUnit.SECONDS);
+         assertEquals(server.getRequestCount(), 2);
+      } finally {
+         busy.countDown();
+         executor.shutdownNow();
+      }
+   }
+
+   public void testLookupMissesAreNotWrittenBack() throws InterruptedException {
+      server.enqueue(jsonResponse("/devices.json"));
+      server.enqueue(jsonResponse("/device.json"));
+
+      DeviceInventoryCache cache = new DeviceInventoryCache(api, true, 1000, 5000, 100, sameThreadExecutor(), ticker);
+
+      assertEquals(size(cache.list("projectId12345")), 1);
+      cache.remove("projectId12345", DEVICE_ID);
+
+      // The removed device is still returned by the API while it is deprovisioned
+      assertNotNull(cache.get("projectId12345", DEVICE_ID));
+      assertFalse(cache.cachedDevices("projectId12345").containsKey(DEVICE_ID));
+      assertEquals(server.getRequestCount(), 2);
+   }
+
+   public void testCreatedAndDeletedDevicesAreWrittenThrough() throws InterruptedException {
+      server.enqueue(jsonResponse("/devices.json"));
+
+      DeviceInventoryCache cache = new DeviceInventoryCache(api, true, 1000, 5000, 100, sameThreadExecutor(), ticker);
+
+      Device device = getOnlyDevice(cache);
+      cache.remove("projectId12345", DEVICE_ID);
+      assertFalse(cache.cachedDevices("projectId12345").containsKey(DEVICE_ID));
+
+      cache.put("projectId12345", device);
+      assertEquals(cache.cachedDevices("projectId12345").get(DEVICE_ID), device);
+      assertEquals(server.getRequestCount(), 1);
+   }
+
+   public void testWriteThroughIsIgnoredIfNoInventoryIsCached() {
+      DeviceInventoryCache cache = new DeviceInventoryCache(api, true, 1000, 5000, 100, sameThreadExecutor(), ticker);
+
+      cache.remove("projectId12345", DEVICE_ID);
+
+      assertNull(cache.cachedDevices("projectId12345"));
+      assertEquals(server.getRequestCount(), 0);
+   }
+
+   private Device getOnlyDevice(DeviceInventoryCache cache) {
+      return cache.list("projectId12345").iterator().next();
+   }
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import org.jclouds.packet.domain.Device;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+
+@Test(groups = "unit", testName = "DeviceStatePollerMockTest", singleThreaded = true)
+public class DeviceStatePollerMockTest extends BasePacketApiMockTest {
+
+   private static final String DEVICE_ID = "98e22032-579e-4c04-bb12-05cc6a3864c8";
+   private static final String OTHER_DEVICE_ID = "a4b2bbf1-8c3e-4c7b-a1a8-7b3c4e14e2a1";
+
+   private ListeningScheduledExecutorService scheduler;
+   private DeviceStatePoller poller;
+
+   @BeforeMethod
+   public void setupPoller() {
+      scheduler = MoreExecutors.listeningDecorator(Executors.newSingleThreadScheduledExecutor());
+      // Use a long period so the test drives the ticks manually
+      poller = new DeviceStatePoller(api, scheduler, 3600000, 100);
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void shutdownScheduler() {
+      scheduler.shutdownNow();
+   }
+
+   public void testPendingDevicesAreRefreshedWithOneListingPerTick() throws Exception {
+      server.enqueue(jsonResponse("/devices.json"));
+      server.enqueue(activeDevicesResponse());
+
+      ListenableFuture<Device> first = poller.awaitState("projectId12345", DEVICE_ID, Device.State.ACTIVE);
+      ListenableFuture<Device> second = poller.awaitState("projectId12345", OTHER_DEVICE_ID, Device.State.ACTIVE);
+
+      poller.poll();
+      assertFalse(first.isDone());
+      assertFalse(second.isDone());
+      assertEquals(server.getRequestCount(), 1);
+
+      poller.poll();
+      assertEquals(first.get().id(), DEVICE_ID);
+      assertEquals(first.get().state(), Device.State.ACTIVE);
+      assertFalse(second.isDone());
+      assertEquals(poller.pending(), 1);
+      assertEquals(server.getRequestCount(), 2);
+
+      assertSent(server, "GET", "/projects/projectId12345/devices?per_page=100");
+      assertSent(server, "GET", "/projects/projectId12345/devices?per_page=100");
+   }
+
+   public void testCancelledWaitersAreNotPolled() {
+      ListenableFuture<Device> future = poller.awaitState("projectId12345", DEVICE_ID, Device.State.ACTIVE);
+      future.cancel(false);
+
+      poller.poll();
+
+      assertEquals(poller.pending(), 0);
+      assertEquals(server.getRequestCount(), 0);
+   }
+
+   public void testListingErrorsAreRetriedInTheNextTick() throws InterruptedException, ExecutionException {
+      server.enqueue(response500());
+      server.enqueue(activeDevicesResponse());
+
+      ListenableFuture<Device> future = poller.awaitState("projectId12345", DEVICE_ID, Device.State.ACTIVE);
+
+      poller.poll();
+      assertFalse(future.isDone());
+
+      poller.poll();
+      assertTrue(future.isDone());
+      assertEquals(future.get().state(), Device.State.ACTIVE);
+   }
+
+   public void testTerminatedDevicesAreConfirmedWithOneListingPerTick() throws Exception {
+      server.enqueue(jsonResponse("/devices.json"));
+      server.enqueue(noDevicesResponse());
+
+      ListenableFuture<Device> first = poller.awaitTerminated("projectId12345", DEVICE_ID);
+      ListenableFuture<Device> second = poller.awaitTerminated("projectId12345", OTHER_DEVICE_ID);
+
+      poller.poll();
+      assertFalse(first.isDone());
+      assertTrue(second.isDone());
+      assertEquals(poller.pending(), 1);
+
+      poller.poll();
+      assertTrue(first.isDone());
+      assertEquals(poller.pending(), 0);
+      assertEquals(server.getRequestCount(), 2);
+   }
+
+   public void testEventsFeedOnlyLooksUpTheChangedDevices() throws Exception {
+      server.enqueue(jsonResponse("/events.json"));
+      server.enqueue(jsonResponse("/devices.json"));
+      server.enqueue(jsonResponse("/events.json"));
+      server.enqueue(jsonResponse("/events-new.json"));
+      server.enqueue(jsonResponse("/device.json"));
+
+      DeviceStatePoller poller = new DeviceStatePoller(api, scheduler, 3600000, 100, new DeviceEventFeed(api));
+      ListenableFuture<Device> future = poller.awaitState("projectId12345", DEVICE_ID, Device.State.ACTIVE);
+
+      // The first tick sets the cursor and lists the devices
+      poller.poll();
+      assertFalse(future.isDone());
+      // No new events
+      poller.poll();
+      assertFalse(future.isDone());
+      assertEquals(server.getRequestCount(), 3);
+
+      poller.poll();
+      assertEquals(future.get().state(), Device.State.ACTIVE);
+      assertEquals(server.getRequestCount(), 5);
+
+      assertSent(server, "GET", "/projects/projectId12345/events?page=1&per_page=50");
+      assertSent(server, "GET", "/projects/projectId12345/devices?per_page=100");
+      assertSent(server, "GET", "/projects/projectId12345/events?page=1&per_page=50");
+      assertSent(server, "GET", "/projects/projectId12345/events?page=1&per_page=50");
+      assertSent(server, "GET", "/projects/projectId12345/devices/" + DEVICE_ID);
+   }
+
+   public void testManyChangedDevicesAreListedInsteadOfLookedUp() throws Exception {
+      server.enqueue(jsonResponse("/events.json"));
+      server.enqueue(jsonResponse("/devices.json"));
+      server.enqueue(jsonResponse("/events.json"));
+      server.enqueue(activeDevicesResponse());
+
+      DeviceStatePoller poller = new DeviceStatePoller(api, scheduler, 3600000, 100, new DeviceEventFeed(api));
+      ListenableFuture<Device> other = poller.awaitState("projectId12345", OTHER_DEVICE_ID, Device.State.ACTIVE);
+
+      // The first tick sets the cursor and lists the devices
+      poller.poll();
+      assertFalse(other.isDone());
+
+      // Devices that were just registered are checked even without new events
+      ListenableFuture<Device> future = poller.awaitState("projectId12345", DEVICE_ID, Device.State.ACTIVE);
+      for (int i = 0; i < DeviceStatePoller.MAX_DEVICE_LOOKUPS; i++) {
+         poller.awaitState("projectId12345", "device-" + i, Device.State.ACTIVE);
+      }
+
+      poller.poll();
+      assertEquals(future.get().state(), Device.State.ACTIVE);
+      assertFalse(other.isDone());
+      assertEquals(server.getRequestCount(), 4);
+
+      assertSent(server, "GET", "/projects/projectId12345/events?page=1&per_page=50");
+      assertSent(server, "GET", "/projects/projectId12345/devices?per_page=100");
+      assertSent(server, "GET", "/projects/projectId12345/events?page=1&per_page=50");
+      assertSent(server, "GET", "/projects/projectId12345/devices?per_page=100");
+   }
+
+   public void testDevicesWithNewEventsAreCheckedEvenIfTheyAreNotDue() throws Exception {
+      server.enqueue(jsonResponse("/events.json"));
+      server.enqueue(jsonResponse("/devices.json"));
+      server.enqueue(jsonResponse("/events-new.json"));
+      server.enqueue(jsonResponse("/device.json"));
+
+      ProvisioningTimes times = new ProvisioningTimes(1000, 3600000, new FakeTicker(), new Random());
+      times.record("baremetal_0@ewr1@ubuntu_16_04", 1800000);
+      ProvisioningTimes.PollSchedule schedule = times.start(DEVICE_ID, "baremetal_0", "ewr1", "ubuntu_16_04");
+      assertFalse(schedule.isDue());
+
+      DeviceStatePoller poller = new DeviceStatePoller(api, scheduler, 3600000, 100, new DeviceEventFeed(api));
+      ListenableFuture<Device> notDue = poller.awaitState("projectId12345", DEVICE_ID, Device.State.ACTIVE, 3600000,
+            schedule);
+      ListenableFuture<Device> due = poller.awaitState("projectId12345", OTHER_DEVICE_ID, Device.State.ACTIVE);
+
+      // The first tick sets the cursor and lists the devices for the due device only
+      poller.poll();
+      assertFalse(notDue.isDone());
+      assertFalse(due.isDone());
+
+      // The new events of the device that is not due are not skipped
+      poller.poll();
+      assertEquals(notDue.get().state(), Device.State.ACTIVE);
+      assertFalse(due.isDone());
+      assertEquals(server.getRequestCount(), 4);
+
+      assertSent(server, "GET", "/projects/projectId12345/events?page=1&per_page=50");
+      assertSent(server, "GET", "/projects/projectId12345/devices?per_page=100");
+      assertSent(server, "GET", "/projects/projectId12345/events?page=1&per_page=50");
+      assertSent(server, "GET", "/projects/projectId12345/devices/" + DEVICE_ID);
+   }
+
+   public void testFallsBackToListingWhenTheEventsFeedIsUnavailable() throws Exception {
+      server.enqueue(response500());
+      server.enqueue(activeDevicesResponse());
+
+      DeviceStatePoller poller = new DeviceStatePoller(api, scheduler, 3600000, 100, new DeviceEventFeed(api));
+      ListenableFuture<Device> future = poller.awaitState("projectId12345", DEVICE_ID, Device.State.ACTIVE);
+
+      poller.poll();
+      assertEquals(future.get().state(), Device.State.ACTIVE);
+      assertEquals(server.getRequestCount(), 2);
+
+      assertSent(server, "GET", "/projects/projectId12345/events?page=1&per_page=50");
+      assertSent(server, "GET", "/projects/projectId12345/devices?per_page=100");
+   }
+
+   private MockResponse noDevicesResponse() {
+      return new MockResponse().addHeader("Content-Type", "application/json")
+            .setBody("{\"devices\":[],\"meta\":{\"total\":0}}");
+   }
+
+   private MockResponse activeDevicesResponse() {
+      return new MockResponse().addHeader("Content-Type", "application/json")
+            .setBody(stringFromResource("/devices.json").replace("\"provisioning\"", "\"active\""));
+   }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static com.google.common.collect.Iterables.getFirst;
+import static org.jclouds.packet.domain.options.ListOptions.Builder.page;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.jclouds.packet.domain.Device;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+
+@Test(groups = "unit", testName = "DeviceStreamParserMockTest", singleThreaded = true)
+public class DeviceStreamParserMockTest extends BasePacketApiMockTest {
+
+   public void testParseOnlyReadsTheRequestedFields() throws IOException {
+      Collector collector = new Collector();
+
+      DeviceStreamParser.Page page = parser().parse(stream("/devices-first.json"), ImmutableSet.of("plan"), collector);
+
+      assertEquals(page.count(), 1);
+      assertNotNull(page.meta());
+      assertEquals(page.meta().total(), 2);
+
+      Device device = collector.devices.get(0);
+      assertEquals(device.hostname(), "test");
+      assertEquals(device.state(), Device.State.PROVISIONING);
+      assertNotNull(device.plan());
+      assertNull(device.operatingSystem());
+      assertNull(device.facility());
+      assertNull(device.rootPassword());
+      assertTrue(device.ipAddresses().isEmpty());
+   }
+
+   public void testParseAllFields() throws IOException {
+      Collector collector = new Collector();
+
+      parser().parse(stream("/devices.json"), DeviceStreamParser.ALL_FIELDS, collector);
+
+      Device device = collector.devices.get(0);
+      server.enqueue(jsonResponse("/devices.json"));
+      assertEquals(device, getFirst(api.deviceApi("projectId12345").list(page(1)), null));
+   }
+
+   public void testForEachWalksAllThePages() throws InterruptedException {
+      server.enqueue(jsonResponse("/devices-first.json"));
+      server.enqueue(jsonResponse("/devices-last.json"));
+      Collector collector = new Collector();
+
+      int count = parser().forEach("projectId12345", ImmutableSet.<String> of(), collector);
+
+      assertEquals(count, 2);
+      assertEquals(collector.devices.get(0).hostname(), "test");
+      assertEquals(collector.devices.get(1).hostname(), "test-2");
+      assertEquals(server.getRequestCount(), 2);
+      assertSent(server, "GET", "/projects/projectId12345/devices?per_page=100");
+      assertSent(server, "GET", "/projects/projectId12345/devices?page=2&per_page=1");
+   }
+
+   public void testForEachReturns404() throws InterruptedException {
+      server.enqueue(response404());
+
+      assertEquals(parser().forEach("projectId12345", ImmutableSet.<String> of(), new Collector()), 0);
+      assertSent(server, "GET", "/projects/projectId12345/devices?per_page=100");
+   }
+
+   private DeviceStreamParser parser() {
+      return new DeviceStreamParser(injector.getInstance(Gson.class), api, 100);
+   }
+
+   private ByteArrayInputStream stream(String resource) {
+      return new ByteArrayInputStream(stringFromResource(resource).getBytes(Charsets.UTF_8));
+   }
+
+   private static class Collector implements DeviceStreamParser.Consumer {
+      private final List<Device> devices = Lists.newArrayList();
+
+      @Override
+      public void accept(Device device) {
+         devices.add(device);
+      }
+   }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "OperatingSystemCatalogMockTest", singleThreaded = true)
+public class OperatingSystemCatalogMockTest extends BasePacketApiMockTest {
+
+   private final FakeTicker ticker = new FakeTicker();
+
+   public void testCatalogIsLoadedOnceAndIndexedBySlug() throws InterruptedException {
+      server.enqueue(jsonResponse("/operatingSystems.json"));
+
+      OperatingSystemCatalog catalog = new OperatingSystemCatalog(api, 1000, ticker);
+
+      assertNotNull(catalog.get("centos_7"));
+      assertNull(catalog.get("unexisting"));
+      assertEquals(catalog.values().size(), catalog.get().size());
+
+      assertEquals(server.getRequestCount(), 1);
+      assertSent(server, "GET", "/operating-systems");
+   }
+
+   public void testCatalogIsRefreshedAfterTheInterval() throws InterruptedException {
+      server.enqueue(jsonResponse("/operatingSystems.json"));
+      server.enqueue(jsonResponse("/operatingSystems.json"));
+
+      OperatingSystemCatalog catalog = new OperatingSystemCatalog(api, 1000, ticker);
+
+      assertNotNull(catalog.get("centos_7"));
+      ticker.advance(999, TimeUnit.MILLISECONDS);
+      assertNotNull(catalog.get("centos_7"));
+      assertEquals(server.getRequestCount(), 1);
+
+      ticker.advance(1, TimeUnit.MILLISECONDS);
+      assertNotNull(catalog.get("centos_7"));
+      assertEquals(server.getRequestCount(), 2);
+   }
+
+   public void testRefreshAndInvalidate() throws InterruptedException {
+      server.enqueue(jsonResponse("/operatingSystems.json"));
+      server.enqueue(jsonResponse("/operatingSystems.json"));
+
+      OperatingSystemCatalog catalog = new OperatingSystemCatalog(api, 1000, ticker);
+
+      catalog.refresh();
+      assertEquals(server.getRequestCount(), 1);
+
+      catalog.invalidate();
+      assertNotNull(catalog.get("centos_7"));
+      assertEquals(server.getRequestCount(), 2);
+   }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.json.Json;
+import org.jclouds.json.config.GsonModule;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.inject.Guice;
+
+@Test(groups = "unit", testName = "ProvisioningTimesTest")
+public class ProvisioningTimesTest {
+
+   private static final String KEY = "c1.small.x86@ewr1@ubuntu_16_04";
+
+   public void testDelayShrinksTowardsTheExpectedFinish() {
+      Optional<Long> expected = Optional.of(600000L);
+
+      assertEquals(ProvisioningTimes.delay(0, expected, 5000, 60000), 60000);
+      assertEquals(ProvisioningTimes.delay(500000, expected, 5000, 60000), 50000);
+      assertEquals(ProvisioningTimes.delay(595000, expected, 5000, 60000), 5000);
+      assertEquals(ProvisioningTimes.delay(700000, expected, 5000, 60000), 5000);
+      assertEquals(ProvisioningTimes.delay(0, Optional.<Long> absent(), 5000, 60000), 5000);
+   }
+
+   public void testOnlyTheRecentSamplesAreKept() {
+      ProvisioningTimes times = new ProvisioningTimes(5000, 60000, new FakeTicker(), new Random());
+      assertEquals(times.durations("c1.small.x86", "ewr1", null).length, 0);
+
+      times.record(KEY, 100);
+      times.record(KEY, 300);
+      times.record("c1.small.x86@ewr1@centos_7", 200);
+      assertEquals(Longs.asList(times.durations("c1.small.x86", "ewr1", "ubuntu_16_04")), Longs.asList(100, 300));
+      assertEquals(Longs.asList(times.durations("c1.small.x86", "ewr1", null)), Longs.asList(100, 200, 300));
+      assertEquals(times.durations("c1.small.x86", "sjc1", null).length, 0);
+
+      for (int i = 0; i < ProvisioningTimes.MAX_SAMPLES; i++) {
+         times.record(KEY, 1000);
+      }
+      assertEquals(ProvisioningTimes.percentile(times.durations("c1.small.x86", "ewr1", "ubuntu_16_04"), 1), 1000);
+   }
+
+   public void testPercentilesUseTheNearestRank() {
+      long[] durations = { 100, 200, 300, 400 };
+      assertEquals(ProvisioningTimes.percentile(durations, 50), 200);
+      assertEquals(ProvisioningTimes.percentile(durations, 90), 400);
+      assertEquals(ProvisioningTimes.percentile(durations, 100), 400);
+   }
+
+   public void testCompletedDevicesAreRecorded() {
+      FakeTicker ticker = new FakeTicker();
+      ProvisioningTimes times = new ProvisioningTimes(5000, 60000, ticker, new Random());
+
+      ProvisioningTimes.PollSchedule schedule = times.start("device-1", "c1.small.x86", "ewr1", "ubuntu_16_04");
+      ticker.advance(100, TimeUnit.SECONDS);
+      times.completed(schedule);
+      times.completed(schedule);
+
+      assertEquals(Longs.asList(times.durations("c1.small.x86", "ewr1", "ubuntu_16_04")), Longs.asList(100000));
+      assertFalse(times.remainingMillis("device-1").isPresent());
+
+      times.abandoned(times.start("device-2", "c1.small.x86", "ewr1", "ubuntu_16_04"));
+      assertEquals(times.durations("c1.small.x86", "ewr1", "ubuntu_16_04").length, 1);
+   }
+
+   public void testRemainingTimeOnlyConsidersLongerProvisionings() {
+      FakeTicker ticker = new FakeTicker();
+      ProvisioningTimes times = new ProvisioningTimes(5000, 60000, ticker, new Random());
+      times.record(KEY, 300000);
+      times.record(KEY, 600000);
+      times.record(KEY, 900000);
+
+      times.start("device-1", "c1.small.x86", "ewr1", "ubuntu_16_04");
+      ticker.advance(400, TimeUnit.SECONDS);
+      assertEquals(times.remainingMillis("device-1").get().longValue(), 200000);
+
+      ticker.advance(600, TimeUnit.SECONDS);
+      assertEquals(times.remainingMillis("device-1").get().longValue(), 0);
+   }
+
+   public void testScheduleWaitsDuringTheQuietPeriod() {
+      FakeTicker ticker = new FakeTicker();
+      ProvisioningTimes times = new ProvisioningTimes(5000, 60000, ticker, new Random());
+      times.record(KEY, 600000);
+
+      // Falls back to the times of the other operating systems of the plan and facility
+      ProvisioningTimes.PollSchedule schedule = times.start("device-1", "c1.small.x86", "ewr1", "centos_7");
+      assertEquals(schedule.expectedMillis().get().longValue(), 600000);
+      assertFalse(schedule.isDue());
+
+      // The first delay is the maximum period, with up to 20% jitter
+      ticker.advance(47, TimeUnit.SECONDS);
+      assertFalse(schedule.isDue());
+      ticker.advance(26, TimeUnit.SECONDS);
+      assertTrue(schedule.isDue());
+      assertEquals(schedule.elapsedMillis(), 73000);
+   }
+
+   public void testScheduleIsDueOnEveryTickWithoutSamples() {
+      FakeTicker ticker = new FakeTicker();
+      ProvisioningTimes.PollSchedule schedule = new ProvisioningTimes(5000, 60000, ticker, new Random())
+            .start("device-1", "c1.small.x86", "ewr1", "ubuntu_16_04");
+
+      assertTrue(schedule.isDue());
+      schedule.checked();
+      assertTrue(schedule.isDue());
+   }
+
+   public void testTimesArePersisted() throws IOException {
+      Json json = Guice.createInjector(new GsonModule()).getInstance(Json.class);
+      File file = File.createTempFile("provisioning-times", ".json");
+      try {
+         FakeTicker ticker = new FakeTicker();
+         ProvisioningTimes times = new ProvisioningTimes(5000, 60000, ticker, new Random(), json, file,
+               MoreExecutors.sameThreadExecutor());
+         ProvisioningTimes.PollSchedule schedule = times.start("device-1", "c1.small.x86", "ewr1", "ubuntu_16_04");
+         ticker.advance(100, TimeUnit.SECONDS);
+         times.completed(schedule);
+
+         ProvisioningTimes loaded = new ProvisioningTimes(5000, 60000, ticker, new Random(), json, file,
+               MoreExecutors.sameThreadExecutor());
+         assertEquals(Longs.asList(loaded.durations("c1.small.x86", "ewr1", "ubuntu_16_04")), Longs.asList(100000));
+      } finally {
+         file.delete();
+      }
+   }
+
+   public void testPersistedTimesAreReadOnFirstUse() throws IOException {
+      Json json = Guice.createInjector(new GsonModule()).getInstance(Json.class);
+      File file = File.createTempFile("provisioning-times", ".json");
+      try {
+         ProvisioningTimes times = new ProvisioningTimes(5000, 60000, new FakeTicker(), new Random(), json, file,
+               MoreExecutors.sameThreadExecutor());
+         // The file is not read when the object is built, before the logger is injected
+         Files.write("{\"" + KEY + "\":[100000]}", file, Charsets.UTF_8);
+
+         assertEquals(Longs.asList(times.durations("c1.small.x86", "ewr1", "ubuntu_16_04")), Longs.asList(100000));
+      } finally {
+         file.delete();
+      }
+   }
+
+   public void testTimesArePersistedInTheBackground() throws IOException {
+      Json json = Guice.createInjector(new GsonModule()).getInstance(Json.class);
+      File file = File.createTempFile("provisioning-times", ".json");
+      file.delete();
+      try {
+         final List<Runnable> writes = Lists.newArrayList();
+         Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+               writes.add(command);
+            }
+         };
+         FakeTicker ticker = new FakeTicker();
+         ProvisioningTimes times = new ProvisioningTimes(5000, 60000, ticker, new Random(), json, file, executor);
+         ProvisioningTimes.PollSchedule first = times.start("device-1", "c1.small.x86", "ewr1", "ubuntu_16_04");
+         ProvisioningTimes.PollSchedule second = times.start("device-2", "c1.small.x86", "ewr1", "ubuntu_16_04");
+         ticker.advance(100, TimeUnit.SECONDS);
+         times.completed(first);
+         times.completed(second);
+
+         assertFalse(file.exists());
+         assertEquals(writes.size(), 1);
+         writes.get(0).run();
+
+         ProvisioningTimes loaded = new ProvisioningTimes(5000, 60000, ticker, new Random(), json, file,
+               MoreExecutors.sameThreadExecutor());
+         assertEquals(Longs.asList(loaded.durations("c1.small.x86", "ewr1", "ubuntu_16_04")),
+               Longs.asList(100000, 100000));
+      } finally {
+         file.delete();
+      }
+   }
+}
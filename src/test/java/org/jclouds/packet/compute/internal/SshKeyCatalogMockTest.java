@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.util.Map;
+
+import org.jclouds.packet.domain.SshKey;
+import org.jclouds.ssh.SshKeys;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "SshKeyCatalogMockTest", singleThreaded = true)
+public class SshKeyCatalogMockTest extends BasePacketApiMockTest {
+
+   public void testKeysAreIndexedByFingerprint() throws InterruptedException {
+      server.enqueue(jsonResponse("/sshKeys.json"));
+
+      SshKeyCatalog catalog = new SshKeyCatalog(api, 60000, new FakeTicker());
+      SshKey key = catalog.values().iterator().next();
+
+      assertEquals(catalog.getByPublicKey(key.key()), key);
+      assertNull(catalog.getByPublicKey(SshKeys.generate().get("public")));
+
+      assertEquals(server.getRequestCount(), 1);
+      assertSent(server, "GET", "/ssh-keys");
+   }
+
+   public void testCreatedAndDeletedKeysAreWrittenThrough() throws InterruptedException {
+      server.enqueue(jsonResponse("/sshKeys.json"));
+
+      SshKeyCatalog catalog = new SshKeyCatalog(api, 60000, new FakeTicker());
+      SshKey existing = catalog.values().iterator().next();
+
+      Map<String, String> keyPair = SshKeys.generate();
+      SshKey created = SshKey.create("new-key-id", "label", keyPair.get("public"), "fingerprint",
+            existing.createdAt(), existing.updatedAt(), null, "/ssh-keys/new-key-id");
+      catalog.created(created);
+      assertNotNull(catalog.getByPublicKey(keyPair.get("public")));
+
+      catalog.deleted(existing.id());
+      assertNull(catalog.getByPublicKey(existing.key()));
+      assertEquals(catalog.values().size(), 1);
+
+      assertEquals(server.getRequestCount(), 1);
+   }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.strategy;
+
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static org.jclouds.packet.config.PacketProperties.CAPACITY_CHECK_ENABLED;
+import static org.jclouds.packet.config.PacketProperties.DEVICE_STATE_POLLER_EVENTS_ENABLED;
+import static org.jclouds.packet.config.PacketProperties.DEVICE_STATE_POLLER_PERIOD;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.RunNodesException;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.domain.Credentials;
+import org.jclouds.domain.LoginCredentials;
+import org.jclouds.packet.compute.internal.BasePacketApiMockTest;
+import org.jclouds.packet.metrics.OperationMetrics;
+import org.jclouds.packet.metrics.PacketMetrics;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.TypeLiteral;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(groups = "unit", testName = "CreateSshKeysThenCreateNodesMockTest", singleThreaded = true)
+public class CreateSshKeysThenCreateNodesMockTest extends BasePacketApiMockTest {
+
+   private static final String DEVICES = "/projects/projectId12345/devices";
+   private static final String DEVICE_ID = "98e22032-579e-4c04-bb12-05cc6a3864c8";
+   private static final String SSH_KEY_ID = "6c9a4e36-2b8c-4a6b-9c1e-0d52cd9e2e0b";
+
+   private volatile CountDownLatch sshKeyDeleted;
+   private volatile MockResponse sshKeyDeletion;
+
+   @Override
+   protected Set<Module> modules() {
+      // The node customization blocks, so it must not run in the poller thread
+      return ImmutableSet.of();
+   }
+
+   @Override
+   protected Properties overrides() {
+      Properties properties = super.overrides();
+      properties.put(DEVICE_STATE_POLLER_PERIOD, "100");
+      properties.put(DEVICE_STATE_POLLER_EVENTS_ENABLED, "false");
+      properties.put(CAPACITY_CHECK_ENABLED, "false");
+      return properties;
+   }
+
+   @BeforeMethod
+   public void setupDispatcher() {
+      sshKeyDeleted = new CountDownLatch(1);
+      sshKeyDeletion = response204();
+      server.setDispatcher(new Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) {
+            String method = request.getMethod();
+            String path = request.getPath();
+            if (method.equals("POST") && path.equals("/ssh-keys")) {
+               return created("/ssh-keys/" + SSH_KEY_ID);
+            } else if (method.equals("DELETE") && path.equals("/ssh-keys/" + SSH_KEY_ID)) {
+               sshKeyDeleted.countDown();
+               return sshKeyDeletion;
+            } else if (method.equals("POST") && path.equals(DEVICES)) {
+               return created(DEVICES + "/" + DEVICE_ID);
+            } else if (path.startsWith(DEVICES + "/" + DEVICE_ID)) {
+               return jsonResponse("/device.json");
+            } else if (path.startsWith(DEVICES + "?")) {
+               return new MockResponse().addHeader("Content-Type", "application/json")
+                     .setBody(stringFromResource("/devices.json").replace("\"provisioning\"", "\"active\""));
+            } else if (path.startsWith("/plans")) {
+               return jsonResponse("/plans.json");
+            } else if (path.startsWith("/facilities")) {
+               return jsonResponse("/facilities.json");
+            } else if (path.startsWith("/operating-systems")) {
+               return jsonResponse("/operatingSystems.json");
+            }
+            return response404();
+         }
+      });
+   }
+
+   public void testCreatedNodesHonourTheLoginOverridesOfTheTemplate() throws RunNodesException {
+      ComputeService compute = injector.getInstance(ComputeService.class);
+      Template template = template(compute);
+      template.getOptions().overrideLoginUser("admin");
+      template.getOptions().overrideLoginPassword("secret");
+      template.getOptions().overrideAuthenticateSudo(true);
+
+      NodeMetadata node = getOnlyElement(compute.createNodesInGroup("mock", 1, template));
+
+      LoginCredentials credentials = node.getCredentials();
+      assertEquals(credentials.getUser(), "admin");
+      assertEquals(credentials.getOptionalPassword().get(), "secret");
+      assertTrue(credentials.getOptionalPrivateKey().isPresent());
+      assertTrue(credentials.shouldAuthenticateSudo());
+
+      Credentials stored = credentialStore().get("node#" + node.getId());
+      assertNotNull(stored);
+      assertEquals(stored.identity, "admin");
+
+      OperationMetrics registration = metrics().get(PacketMetrics.GROUP_SSH_KEY_REGISTRATION);
+      assertEquals(registration.requests(), 1);
+      assertEquals(registration.errors(), 0);
+   }
+
+   public void testFailedKeyCleanupDoesNotFailTheGroup() throws RunNodesException, InterruptedException {
+      sshKeyDeletion = response500();
+      ComputeService compute = injector.getInstance(ComputeService.class);
+
+      NodeMetadata node = getOnlyElement(compute.createNodesInGroup("mock", 1, template(compute)));
+
+      assertEquals(node.getId(), DEVICE_ID);
+      assertTrue(sshKeyDeleted.await(10, TimeUnit.SECONDS), "The auto-generated key pair was not deleted");
+
+      OperationMetrics cleanup = awaitMetrics(PacketMetrics.GROUP_SSH_KEY_CLEANUP);
+      assertEquals(cleanup.requests(), 1);
+      assertEquals(cleanup.errors(), 1);
+   }
+
+   private OperationMetrics awaitMetrics(String operation) {
+      // The cleanup is recorded in a user thread once the deletions complete
+      for (int i = 0; i < 100 && metrics().get(operation) == null; i++) {
+         sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+      }
+      OperationMetrics operationMetrics = metrics().get(operation);
+      assertNotNull(operationMetrics, operation + " was not recorded");
+      return operationMetrics;
+   }
+
+   private PacketMetrics metrics() {
+      return injector.getInstance(PacketMetrics.class);
+   }
+
+   private Template template(ComputeService compute) {
+      return compute.templateBuilder().hardwareId("baremetal_0").locationId("ewr1").imageId("centos_7").build();
+   }
+
+   private Map<String, Credentials> credentialStore() {
+      return injector.getInstance(Key.get(new TypeLiteral<Map<String, Credentials>>() {
+      }));
+   }
+
+   private MockResponse created(String path) {
+      return new MockResponse().setResponseCode(201).addHeader("Location", url(path));
+   }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.compute.utils;
+
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+@Test(groups = "unit", testName = "ConcurrentTasksTest", singleThreaded = true)
+public class ConcurrentTasksTest {
+
+   private ListeningExecutorService executor;
+
+   @BeforeMethod
+   public void setupExecutor() {
+      executor = listeningDecorator(Executors.newFixedThreadPool(2));
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void shutdownExecutor() {
+      executor.shutdownNow();
+   }
+
+   public void testAllInputsAreProcessed() {
+      final AtomicInteger sum = new AtomicInteger();
+      ConcurrentTasks.forEach(ImmutableList.of(1, 2, 3, 4, 5), new Function<Integer, Void>() {
+         @Override
+         public Void apply(Integer input) {
+            sum.addAndGet(input);
+            return null;
+         }
+      }, 3, executor);
+
+      assertEquals(sum.get(), 15);
+   }
+
+   public void testCallerFailureWaitsForTheRunningWorkers() {
+      final Thread caller = Thread.currentThread();
+      final CountDownLatch workerStarted = new CountDownLatch(1);
+      final AtomicInteger started = new AtomicInteger();
+      final AtomicInteger completed = new AtomicInteger();
+
+      try {
+         ConcurrentTasks.forEach(ImmutableList.of(1, 2, 3), new Function<Integer, Void>() {
+            @Override
+            public Void apply(Integer input) {
+               if (Thread.currentThread() == caller) {
+                  awaitUninterruptibly(workerStarted);
+                  throw new IllegalStateException("caller failed");
+               }
+               started.incrementAndGet();
+               workerStarted.countDown();
+               sleepUninterruptibly(200, TimeUnit.MILLISECONDS);
+               completed.incrementAndGet();
+               return null;
+            }
+         }, 3, executor);
+         fail("The failure of the calling thread should have been propagated");
+      } catch (IllegalStateException expected) {
+         assertTrue(started.get() > 0);
+         assertEquals(completed.get(), started.get());
+      }
+   }
+
+   public void testWorkerFailuresArePropagatedAndStopNewInputs() {
+      final AtomicInteger processed = new AtomicInteger();
+
+      try {
+         ConcurrentTasks.forEach(ImmutableList.of(1, 2, 3, 4, 5, 6), new Function<Integer, Void>() {
+            @Override
+            public Void apply(Integer input) {
+               processed.incrementAndGet();
+               if (input == 1) {
+                  throw new IllegalStateException("task failed");
+               }
+               sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+               return null;
+            }
+         }, 2, executor);
+         fail("The failure of the task should have been propagated");
+      } catch (IllegalStateException expected) {
+         assertTrue(processed.get() < 6);
+      }
+   }
+
+   @Test(timeOut = 10000)
+   public void testQueuedWorkersAreNotAwaited() {
+      final CountDownLatch release = new CountDownLatch(1);
+      // Keep both threads of the executor busy, so the workers stay queued
+      for (int i = 0; i < 2; i++) {
+         executor.submit(new Runnable() {
+            @Override
+            public void run() {
+               awaitUninterruptibly(release);
+            }
+         });
+      }
+      final AtomicInteger sum = new AtomicInteger();
+      try {
+         ConcurrentTasks.forEach(ImmutableList.of(1, 2, 3, 4, 5), new Function<Integer, Void>() {
+            @Override
+            public Void apply(Integer input) {
+               sum.addAndGet(input);
+               return null;
+            }
+         }, 3, executor);
+
+         assertEquals(sum.get(), 15);
+      } finally {
+         release.countDown();
+      }
+   }
+}
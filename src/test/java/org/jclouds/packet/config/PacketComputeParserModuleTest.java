@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.config;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.jclouds.json.Json;
+import org.jclouds.json.SerializedNames;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.packet.domain.Device;
+import org.jclouds.packet.domain.Facility;
+import org.jclouds.packet.domain.Href;
+import org.jclouds.packet.domain.IpAddress;
+import org.jclouds.packet.domain.OperatingSystem;
+import org.jclouds.packet.domain.Plan;
+import org.jclouds.packet.domain.Pricing;
+import org.jclouds.packet.domain.Project;
+import org.jclouds.packet.domain.Specs;
+import org.jclouds.packet.domain.SshKey;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.Resources;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.reflect.TypeToken;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+@Test(groups = "unit", testName = "PacketComputeParserModuleTest")
+public class PacketComputeParserModuleTest {
+
+   private static final List<Class<?>> STREAMED_TYPES = ImmutableList.<Class<?>> of(Device.class, Plan.class,
+         Specs.class, IpAddress.class, OperatingSystem.class, Facility.class, SshKey.class, Project.class, Href.class,
+         Pricing.class);
+
+   private final Injector injector = Guice.createInjector(new GsonModule(), new PacketComputeParserModule());
+   private final Json json = injector.getInstance(Json.class);
+
+   // Decodes the domain objects reflectively, through their factory methods
+   private final Json reflectiveJson = Guice.createInjector(new GsonModule(), new AbstractModule() {
+      @Override
+      protected void configure() {
+         bind(GsonModule.DateAdapter.class).to(GsonModule.Iso8601DateAdapter.class);
+      }
+   }).getInstance(Json.class);
+
+   public void testStreamingAdaptersMatchReflectiveDecoding() throws IOException {
+      assertDecodedEqually("/devices.json", "devices", Device.class);
+      assertDecodedEqually("/plans.json", "plans", Plan.class);
+      assertDecodedEqually("/facilities.json", "facilities", Facility.class);
+      assertDecodedEqually("/operatingSystems.json", "operating_systems", OperatingSystem.class);
+      assertDecodedEqually("/sshKeys.json", "ssh_keys", SshKey.class);
+      assertDecodedEqually("/projects.json", "projects", Project.class);
+   }
+
+   public void testStreamingAdaptersAreRegistered() {
+      Gson gson = injector.getInstance(Gson.class);
+      for (Class<?> type : STREAMED_TYPES) {
+         assertNotNull(new PacketTypeAdapterFactory().create(gson, TypeToken.get(type)),
+               type + " has no streaming adapter");
+      }
+   }
+
+   public void testStreamingAdaptersReadEverySerializedName() throws Exception {
+      for (Class<?> type : STREAMED_TYPES) {
+         String element = sample(type, type.getSimpleName()).toString();
+         Object streamed = json.fromJson(element, type);
+         assertEquals(streamed, reflectiveJson.fromJson(element, type), type + " adapter does not read all of " + element);
+         for (Method property : properties(type)) {
+            assertNotNull(property.invoke(streamed), type + " sample does not set " + property.getName());
+         }
+      }
+   }
+
+   /**
+    * Builds a JSON object that sets every field of the <code>@SerializedNames</code> factory method of the type.
+    */
+   private static JsonElement sample(Type type, String name) {
+      Class<?> raw = TypeToken.get(type).getRawType();
+      if (raw == String.class || raw == Object.class) {
+         return new JsonPrimitive(name);
+      } else if (raw == Integer.class || raw == int.class) {
+         return new JsonPrimitive(name.length());
+      } else if (raw == Double.class || raw == double.class) {
+         return new JsonPrimitive(name.length() + 0.5);
+      } else if (raw == Boolean.class || raw == boolean.class) {
+         return new JsonPrimitive(true);
+      } else if (raw == Date.class) {
+         return new JsonPrimitive("2017-01-20T16:30:00Z");
+      } else if (raw.isEnum()) {
+         return new JsonPrimitive(raw.getEnumConstants()[0].toString().toLowerCase());
+      } else if (Collection.class.isAssignableFrom(raw)) {
+         JsonArray array = new JsonArray();
+         array.add(sample(((ParameterizedType) type).getActualTypeArguments()[0], name));
+         return array;
+      } else if (Map.class.isAssignableFrom(raw)) {
+         JsonObject object = new JsonObject();
+         object.add(name, sample(((ParameterizedType) type).getActualTypeArguments()[1], name));
+         return object;
+      }
+      Method factory = factoryMethod(raw);
+      assertNotNull(factory, raw + " has no @SerializedNames factory method");
+      String[] names = factory.getAnnotation(SerializedNames.class).value();
+      Type[] parameters = factory.getGenericParameterTypes();
+      JsonObject object = new JsonObject();
+      for (int i = 0; i < names.length; i++) {
+         object.add(names[i], sample(parameters[i], names[i]));
+      }
+      return object;
+   }
+
+   private static Method factoryMethod(Class<?> type) {
+      for (Method method : type.getDeclaredMethods()) {
+         if (Modifier.isStatic(method.getModifiers()) && method.isAnnotationPresent(SerializedNames.class)) {
+            return method;
+         }
+      }
+      return null;
+   }
+
+   private static List<Method> properties(Class<?> type) {
+      List<Method> properties = Lists.newArrayList();
+      for (Method method : type.getDeclaredMethods()) {
+         if (Modifier.isAbstract(method.getModifiers()) && method.getParameterTypes().length == 0) {
+            properties.add(method);
+         }
+      }
+      return properties;
+   }
+
+   public void testRepeatedValuesAreShared() throws IOException {
+      Device first = firstDevice("/devices-first.json");
+      Device second = firstDevice("/devices-last.json");
+
+      assertNotSame(first, second);
+      assertEquals(first.facility(), second.facility());
+      assertSame(first.facility(), second.facility());
+      assertSame(first.plan(), second.plan());
+      assertSame(first.operatingSystem(), second.operatingSystem());
+      assertSame(first.facility().code(), second.facility().code());
+      assertSame(first.project(), second.project());
+   }
+
+   public void testPlainStringsAreNotInterned() throws IOException {
+      Device first = firstDevice("/devices-first.json");
+      Device second = firstDevice("/devices-last.json");
+
+      assertEquals(first.billingCycle(), second.billingCycle());
+      assertNotSame(first.billingCycle(), second.billingCycle());
+   }
+
+   private Device firstDevice(String resource) throws IOException {
+      return json.fromJson(elements(resource, "devices").get(0).toString(), Device.class);
+   }
+
+   private <T> void assertDecodedEqually(String resource, String collection, Class<T> type) throws IOException {
+      JsonArray elements = elements(resource, collection);
+      assertTrue(elements.size() > 0, "no elements in " + resource);
+      for (JsonElement element : elements) {
+         assertEquals(json.fromJson(element.toString(), type), reflectiveJson.fromJson(element.toString(), type));
+      }
+   }
+
+   private JsonArray elements(String resource, String collection) throws IOException {
+      String payload = Resources.toString(getClass().getResource(resource), Charsets.UTF_8);
+      return new JsonParser().parse(payload).getAsJsonObject().getAsJsonArray(collection);
+   }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.config;
+
+import static org.testng.Assert.assertEquals;
+
+import org.jclouds.packet.compute.internal.BasePacketApiMockTest;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "PacketConnectionReuseMockTest", singleThreaded = true)
+public class PacketConnectionReuseMockTest extends BasePacketApiMockTest {
+
+   private static final int CALLS = 20;
+
+   public void testSequentialCallsReuseTheSameConnection() throws InterruptedException {
+      for (int i = 0; i < CALLS; i++) {
+         server.enqueue(jsonResponse("/plans.json"));
+      }
+
+      for (int i = 0; i < CALLS; i++) {
+         api.planApi().list();
+      }
+
+      assertEquals(server.getRequestCount(), CALLS);
+      for (int i = 0; i < CALLS; i++) {
+         // The sequence number is the index of the request in its connection
+         assertEquals(server.takeRequest().getSequenceNumber(), i);
+      }
+   }
+}
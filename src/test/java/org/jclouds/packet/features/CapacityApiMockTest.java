@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.features;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.jclouds.packet.compute.internal.BasePacketApiMockTest;
+import org.jclouds.packet.domain.Capacity;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "CapacityApiMockTest", singleThreaded = true)
+public class CapacityApiMockTest extends BasePacketApiMockTest {
+
+   public void testListCapacity() throws InterruptedException {
+      server.enqueue(jsonResponse("/capacity.json"));
+
+      Map<String, Map<String, Capacity>> capacity = api.capacityApi().list();
+
+      assertEquals(capacity.keySet().size(), 2);
+      assertEquals(capacity.get("sjc1").get("baremetal_0").level(), "limited");
+      assertTrue(capacity.get("ewr1").get("baremetal_0").isAvailable());
+      assertFalse(capacity.get("ewr1").get("baremetal_1").isAvailable());
+
+      assertEquals(server.getRequestCount(), 1);
+      assertSent(server, "GET", "/capacity");
+   }
+
+   public void testListCapacityReturns404() throws InterruptedException {
+      server.enqueue(response404());
+
+      assertTrue(api.capacityApi().list().isEmpty());
+
+      assertEquals(server.getRequestCount(), 1);
+      assertSent(server, "GET", "/capacity");
+   }
+}
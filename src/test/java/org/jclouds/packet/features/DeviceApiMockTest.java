@@ -16,17 +16,30 @@
  */
 package org.jclouds.packet.features;
 
+import static com.google.common.collect.Iterables.getFirst;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Iterables.isEmpty;
 import static com.google.common.collect.Iterables.size;
+import static org.jclouds.http.utils.Queries.queryParser;
+import static org.jclouds.packet.domain.options.ListOptions.Builder.page;
+import static org.jclouds.packet.domain.options.ListOptions.Builder.perPage;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
+import java.net.URI;
 import java.util.List;
 
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.collect.PagedIterable;
 import org.jclouds.packet.compute.internal.BasePacketApiMockTest;
 import org.jclouds.packet.domain.Device;
+import org.jclouds.packet.domain.DeviceSummary;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.Multimap;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
 @Test(groups = "unit", testName = "DeviceApiMockTest", singleThreaded = true)
 public class DeviceApiMockTest extends BasePacketApiMockTest {
 
@@ -51,4 +64,85 @@ public class DeviceApiMockTest extends BasePacketApiMockTest {
       assertSent(server, "GET", "/projects/projectId12345/devices");
    }
 
+   public void testListDevicesWithOptions() throws InterruptedException {
+      server.enqueue(jsonResponse("/devices-first.json"));
+
+      IterableWithMarker<Device> devices = api.deviceApi("projectId12345").list(page(1).perPage(1));
+
+      assertEquals(size(devices), 1);
+      assertTrue(devices.nextMarker().isPresent());
+      assertEquals(server.getRequestCount(), 1);
+      assertSent(server, "GET", "/projects/projectId12345/devices?page=1&per_page=1");
+   }
+
+   public void testListDevicesWithOptionsReturns404() throws InterruptedException {
+      server.enqueue(response404());
+
+      IterableWithMarker<Device> devices = api.deviceApi("projectId12345").list(page(1).perPage(1));
+
+      assertTrue(isEmpty(devices));
+      assertEquals(server.getRequestCount(), 1);
+      assertSent(server, "GET", "/projects/projectId12345/devices?page=1&per_page=1");
+   }
+
+   public void testListPagedDevices() throws InterruptedException {
+      server.enqueue(jsonResponse("/devices-first.json"));
+      server.enqueue(jsonResponse("/devices-last.json"));
+
+      PagedIterable<Device> devices = api.deviceApi("projectId12345").listPaged(perPage(1));
+
+      // Only the first page is fetched until the next one is consumed
+      assertEquals(server.getRequestCount(), 1);
+      assertEquals(size(devices.concat()), 2);
+      assertEquals(server.getRequestCount(), 2);
+      assertSent(server, "GET", "/projects/projectId12345/devices?per_page=1");
+      assertSent(server, "GET", "/projects/projectId12345/devices?page=2&per_page=1");
+   }
+
+   public void testListPagedDevicesReturns404() throws InterruptedException {
+      server.enqueue(response404());
+
+      PagedIterable<Device> devices = api.deviceApi("projectId12345").listPaged(perPage(1));
+
+      assertTrue(isEmpty(devices.concat()));
+      assertEquals(server.getRequestCount(), 1);
+      assertSent(server, "GET", "/projects/projectId12345/devices?per_page=1");
+   }
+
+   public void testListSummaries() throws InterruptedException {
+      server.enqueue(jsonResponse("/devices-first.json"));
+      server.enqueue(jsonResponse("/devices-last.json"));
+
+      List<DeviceSummary> summaries = api.deviceApi("projectId12345").listSummaries().concat().toList();
+
+      assertEquals(summaries.size(), 2);
+      DeviceSummary summary = summaries.get(0);
+      assertEquals(summary.id(), "98e22032-579e-4c04-bb12-05cc6a3864c8");
+      assertEquals(summary.hostname(), "test");
+      assertEquals(summary.state(), Device.State.PROVISIONING);
+      assertEquals(summary.facilityCode(), "ewr1");
+      assertEquals(summary.planSlug(), "baremetal_0");
+      assertEquals(summary.ipAddresses().size(), 3);
+
+      assertSentSummaries(server, null);
+      assertSentSummaries(server, "2");
+   }
+
+   public void testListSummariesReturns404() throws InterruptedException {
+      server.enqueue(response404());
+
+      assertTrue(isEmpty(api.deviceApi("projectId12345").listSummaries().concat()));
+      assertSentSummaries(server, null);
+   }
+
+   private static void assertSentSummaries(MockWebServer server, String page) throws InterruptedException {
+      RecordedRequest request = server.takeRequest();
+      assertEquals(request.getMethod(), "GET");
+      URI uri = URI.create(request.getPath());
+      assertEquals(uri.getPath(), "/projects/projectId12345/devices");
+      Multimap<String, String> params = queryParser().apply(uri.getRawQuery());
+      assertEquals(getOnlyElement(params.get("include")), DeviceApi.SUMMARY_INCLUDE);
+      assertEquals(getOnlyElement(params.get("exclude")), DeviceApi.SUMMARY_EXCLUDE);
+      assertEquals(getFirst(params.get("page"), null), page);
+   }
 }
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.features;
+
+import static com.google.common.collect.Iterables.getFirst;
+import static com.google.common.collect.Iterables.isEmpty;
+import static com.google.common.collect.Iterables.size;
+import static org.jclouds.packet.domain.options.ListOptions.Builder.page;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.packet.compute.internal.BasePacketApiMockTest;
+import org.jclouds.packet.domain.Event;
+import org.jclouds.rest.ResourceNotFoundException;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "EventApiMockTest", singleThreaded = true)
+public class EventApiMockTest extends BasePacketApiMockTest {
+
+   public void testListByProject() throws InterruptedException {
+      server.enqueue(jsonResponse("/events.json"));
+
+      IterableWithMarker<Event> events = api.eventApi().listByProject("93907f48-adfe-43ed-ad89-0e6e83721a54",
+            page(1).perPage(50));
+
+      assertEquals(size(events), 2);
+      assertFalse(events.nextMarker().isPresent());
+      assertEquals(getFirst(events, null).relationships().get(0).href(),
+            "/devices/98e22032-579e-4c04-bb12-05cc6a3864c8");
+
+      assertEquals(server.getRequestCount(), 1);
+      assertSent(server, "GET", "/projects/93907f48-adfe-43ed-ad89-0e6e83721a54/events?page=1&per_page=50");
+   }
+
+   @Test(expectedExceptions = ResourceNotFoundException.class)
+   public void testListByProjectPropagates404() {
+      server.enqueue(response404());
+      api.eventApi().listByProject("93907f48-adfe-43ed-ad89-0e6e83721a54", page(1).perPage(50));
+   }
+
+   public void testListByDeviceReturns404() throws InterruptedException {
+      server.enqueue(response404());
+
+      IterableWithMarker<Event> events = api.eventApi().listByDevice("98e22032-579e-4c04-bb12-05cc6a3864c8",
+            page(1).perPage(50));
+
+      assertTrue(isEmpty(events));
+
+      assertEquals(server.getRequestCount(), 1);
+      assertSent(server, "GET", "/devices/98e22032-579e-4c04-bb12-05cc6a3864c8/events?page=1&per_page=50");
+   }
+
+   public void testGetEventReturns404() throws InterruptedException {
+      server.enqueue(response404());
+
+      assertNull(api.eventApi().get("e5a0c1d2-3b4c-4d5e-8f90-a1b2c3d4e5f6"));
+
+      assertEquals(server.getRequestCount(), 1);
+      assertSent(server, "GET", "/events/e5a0c1d2-3b4c-4d5e-8f90-a1b2c3d4e5f6");
+   }
+}
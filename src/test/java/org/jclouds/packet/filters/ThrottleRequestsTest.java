@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.filters;
+
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "ThrottleRequestsTest")
+public class ThrottleRequestsTest {
+
+   public void testMostSpecificLimiterIsUsed() {
+      ThrottleRequests throttle = new ThrottleRequests("device:create=1, device:*=5, *=10", 300000);
+
+      assertNotNull(throttle.limiterFor("device:create"));
+      assertSame(throttle.limiterFor("device:list"), throttle.limiterFor("device:get"));
+      assertSame(throttle.limiterFor("sshKey:list"), throttle.limiterFor(null));
+      assertSame(throttle.limiterFor("plan:list"), throttle.limiterFor("facility:list"));
+      assertNotSame(throttle.limiterFor("device:create"), throttle.limiterFor("device:list"));
+      assertNotSame(throttle.limiterFor("device:list"), throttle.limiterFor("plan:list"));
+   }
+
+   public void testNoLimiterIfNotConfigured() {
+      ThrottleRequests throttle = new ThrottleRequests("device:*=5", 300000);
+
+      assertNull(throttle.limiterFor("plan:list"));
+      assertNull(throttle.limiterFor(null));
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testInvalidPermits() {
+      new ThrottleRequests("device:*=0", 300000);
+   }
+
+   public void testPauseIsBoundedByTheMaxWait() {
+      ThrottleRequests throttle = new ThrottleRequests("*=10", 1000);
+
+      throttle.pauseFor(TimeUnit.DAYS.toMillis(365));
+
+      assertTrue(throttle.pausedMillis() > 0);
+      assertTrue(throttle.pausedMillis() <= 1000);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testInvalidMaxWait() {
+      new ThrottleRequests("*=10", -1);
+   }
+}
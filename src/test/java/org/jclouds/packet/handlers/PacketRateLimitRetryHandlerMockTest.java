@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.handlers;
+
+import static com.google.common.collect.Iterables.size;
+import static org.jclouds.Constants.PROPERTY_MAX_RETRIES;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.packet.compute.internal.BasePacketApiMockTest;
+import org.testng.annotations.Test;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+
+@Test(groups = "unit", testName = "PacketRateLimitRetryHandlerMockTest", singleThreaded = true)
+public class PacketRateLimitRetryHandlerMockTest extends BasePacketApiMockTest {
+
+   @Override
+   protected Properties overrides() {
+      Properties properties = super.overrides();
+      properties.put(PROPERTY_MAX_RETRIES, "1");
+      return properties;
+   }
+
+   public void testRetryAfterTooManyRequests() throws InterruptedException {
+      server.enqueue(response429().addHeader("Retry-After", "1"));
+      server.enqueue(jsonResponse("/plans.json"));
+
+      long start = System.currentTimeMillis();
+      assertEquals(size(api.planApi().list()), 7);
+
+      assertTrue(System.currentTimeMillis() - start >= 1000, "The request should have been retried after 1 second");
+      assertEquals(server.getRequestCount(), 2);
+      assertSent(server, "GET", "/plans");
+      assertSent(server, "GET", "/plans");
+   }
+
+   public void testGiveUpAfterTheMaxRetries() throws InterruptedException {
+      server.enqueue(response429().addHeader("Retry-After", "0"));
+      server.enqueue(response429().addHeader("Retry-After", "0"));
+
+      try {
+         api.planApi().list();
+         fail("The request should have failed");
+      } catch (HttpResponseException expected) {
+         assertEquals(expected.getResponse().getStatusCode(), 429);
+      }
+
+      assertEquals(server.getRequestCount(), 2);
+   }
+
+   public void testRateLimitHeadersAreReadFromSuccessfulResponses() {
+      long reset = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 2;
+      server.enqueue(jsonResponse("/plans.json").addHeader("X-RateLimit-Remaining", "0")
+            .addHeader("X-RateLimit-Reset", String.valueOf(reset)));
+
+      server.enqueue(jsonResponse("/plans.json"));
+
+      assertEquals(size(api.planApi().list()), 7);
+      long start = System.currentTimeMillis();
+      assertEquals(size(api.planApi().list()), 7);
+
+      // The reset header has a resolution of seconds, so the window resets in more than one second
+      assertTrue(System.currentTimeMillis() - start >= 500, "The request should have been held until the reset");
+   }
+
+   private MockResponse response429() {
+      return new MockResponse().setStatus("HTTP/1.1 429 Too Many Requests");
+   }
+}
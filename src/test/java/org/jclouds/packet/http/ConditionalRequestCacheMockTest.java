@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.http;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.packet.compute.internal.BasePacketApiMockTest;
+import org.jclouds.packet.domain.Facility;
+import org.jclouds.packet.domain.Plan;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(groups = "unit", testName = "ConditionalRequestCacheMockTest", singleThreaded = true)
+public class ConditionalRequestCacheMockTest extends BasePacketApiMockTest {
+
+   private static final String ETAG = "\"5f1d6b9a\"";
+   private static final String LAST_MODIFIED = "Tue, 15 Nov 2016 12:45:26 GMT";
+
+   public void testNotModifiedReusesTheCachedPlans() throws InterruptedException {
+      server.enqueue(jsonResponse("/plans.json").addHeader("ETag", ETAG));
+      server.enqueue(notModified());
+
+      List<Plan> first = api.planApi().list();
+      List<Plan> second = api.planApi().list();
+
+      assertEquals(first.size(), 7);
+      assertSame(second, first);
+
+      assertNull(assertSent(server, "GET", "/plans").getHeader("If-None-Match"));
+      assertEquals(assertSent(server, "GET", "/plans").getHeader("If-None-Match"), ETAG);
+   }
+
+   public void testModifiedCatalogIsParsedAgain() throws InterruptedException {
+      server.enqueue(jsonResponse("/plans.json").addHeader("ETag", ETAG));
+      server.enqueue(jsonResponse("/plans.json").addHeader("ETag", "\"other\""));
+      server.enqueue(notModified());
+
+      List<Plan> first = api.planApi().list();
+      List<Plan> second = api.planApi().list();
+      List<Plan> third = api.planApi().list();
+
+      assertNotSame(second, first);
+      assertEquals(second, first);
+      assertSame(third, second);
+
+      assertSent(server, "GET", "/plans");
+      assertEquals(assertSent(server, "GET", "/plans").getHeader("If-None-Match"), ETAG);
+      assertEquals(assertSent(server, "GET", "/plans").getHeader("If-None-Match"), "\"other\"");
+   }
+
+   public void testLastModifiedIsRevalidated() throws InterruptedException {
+      server.enqueue(jsonResponse("/facilities.json").addHeader("Last-Modified", LAST_MODIFIED));
+      server.enqueue(notModified());
+
+      List<Facility> first = api.facilityApi().list();
+      List<Facility> second = api.facilityApi().list();
+
+      assertEquals(second, first);
+      assertSent(server, "GET", "/facilities");
+      RecordedRequest revalidation = assertSent(server, "GET", "/facilities");
+      assertEquals(revalidation.getHeader("If-Modified-Since"), LAST_MODIFIED);
+   }
+
+   public void testResponsesWithoutValidatorsAreNotCached() throws InterruptedException {
+      server.enqueue(jsonResponse("/plans.json"));
+      server.enqueue(jsonResponse("/plans.json"));
+
+      api.planApi().list();
+      api.planApi().list();
+
+      assertSent(server, "GET", "/plans");
+      assertNull(assertSent(server, "GET", "/plans").getHeader("If-None-Match"));
+   }
+
+   public void testCachedCatalogCannotBeModified() {
+      server.enqueue(jsonResponse("/plans.json").addHeader("ETag", ETAG));
+      server.enqueue(notModified());
+
+      List<Plan> first = api.planApi().list();
+      assertTrue(first instanceof ImmutableList);
+      assertSame(api.planApi().list(), first);
+   }
+
+   public void testNotModifiedWithoutACachedResponseFails() {
+      final ConditionalRequestCache cache = injector.getInstance(ConditionalRequestCache.class);
+      server.setDispatcher(new Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) {
+            if (request.getHeader("If-None-Match") == null) {
+               return jsonResponse("/plans.json").addHeader("ETag", ETAG);
+            }
+            // The entry is evicted while the conditional request is in flight
+            cache.invalidate();
+            return notModified();
+         }
+      });
+
+      api.planApi().list();
+      try {
+         api.planApi().list();
+         fail("The 304 response should not be swallowed when there is no cached response to replay");
+      } catch (HttpResponseException expected) {
+         assertEquals(expected.getResponse().getStatusCode(), 304);
+      }
+   }
+
+   private static MockResponse notModified() {
+      return new MockResponse().setStatus("HTTP/1.1 304 Not Modified");
+   }
+}
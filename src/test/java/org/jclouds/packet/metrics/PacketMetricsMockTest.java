@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.packet.metrics;
+
+import static org.jclouds.packet.config.PacketProperties.METRICS_JMX_ENABLED;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+
+import javax.management.ObjectName;
+
+import org.jclouds.packet.compute.internal.BasePacketApiMockTest;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+@Test(groups = "unit", testName = "PacketMetricsMockTest", singleThreaded = true)
+public class PacketMetricsMockTest extends BasePacketApiMockTest {
+
+   @Override
+   protected Properties overrides() {
+      Properties properties = super.overrides();
+      properties.put(METRICS_JMX_ENABLED, "true");
+      return properties;
+   }
+
+   public void testCallsAreRecordedByOperation() throws InterruptedException {
+      server.enqueue(jsonResponse("/devices.json"));
+      server.enqueue(jsonResponse("/devices.json"));
+      server.enqueue(response404());
+
+      api.deviceApi("projectId12345").list();
+      api.deviceApi("projectId12345").list();
+      assertNull(api.deviceApi("projectId12345").get("1"));
+
+      PacketMetrics metrics = injector.getInstance(PacketMetrics.class);
+
+      OperationMetrics list = metrics.get("device:list");
+      assertEquals(list.requests(), 2);
+      assertEquals(list.errors(), 0);
+      assertEquals(list.statusCodes(), ImmutableMap.of(200, 2L));
+      assertTrue(list.responseBytes() > 0);
+      assertTrue(list.maxLatency() >= list.p50Latency());
+
+      OperationMetrics get = metrics.get("device:get");
+      assertEquals(get.requests(), 1);
+      assertEquals(get.errors(), 1);
+      assertEquals(get.statusCodes(), ImmutableMap.of(404, 1L));
+
+      assertEquals(metrics.snapshot().keySet().toString(), "[device:get, device:list]");
+      assertNull(metrics.get("device:create"));
+   }
+
+   public void testMetricsAreExposedOverJmx() throws Exception {
+      server.enqueue(jsonResponse("/devices.json"));
+      api.deviceApi("projectId12345").list();
+
+      PacketMetrics metrics = injector.getInstance(PacketMetrics.class);
+      ObjectName name = getOnlyName(metrics);
+      Long requests = (Long) ManagementFactory.getPlatformMBeanServer().invoke(name, "getRequests",
+            new Object[] { "device:list" }, new String[] { String.class.getName() });
+      assertEquals(requests.longValue(), 1);
+   }
+
+   public void testMBeanIsUnregisteredWhenTheContextIsClosed() throws Exception {
+      PacketMetrics metrics = injector.getInstance(PacketMetrics.class);
+      ObjectName name = getOnlyName(metrics);
+
+      api.close();
+      assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+   }
+
+   public void testHistogramBuckets() {
+      for (long micros : new long[] { 0, 7, 8, 15, 16, 17, 31, 1000, 123456789 }) {
+         long upperBound = LatencyHistogram.upperBound(LatencyHistogram.bucket(micros));
+         assertTrue(upperBound >= micros, micros + " > " + upperBound);
+         assertTrue(upperBound <= micros * 1.125 + 1, micros + " << " + upperBound);
+      }
+   }
+
+   private static ObjectName getOnlyName(PacketMetrics metrics) throws Exception {
+      ObjectName name = new ObjectName("org.jclouds.packet:type=PacketMetrics,id="
+            + Integer.toHexString(System.identityHashCode(metrics)));
+      assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+      return name;
+   }
+}